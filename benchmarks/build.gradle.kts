@@ -0,0 +1,63 @@
+@file:Suppress("UnstableApiUsage")
+
+plugins {
+    id("fabric-loom") version ("1.10-SNAPSHOT")
+    id("me.champeau.jmh") version ("0.7.3")
+}
+
+// JMH benchmarks for the reload-time modification pipeline, run them using `gradlew :benchmarks:jmh`.
+// They run without a mod loader, so mixins aren't applied - see BenchmarkPlatform.
+// Parameters can be overridden on the command line, e.g. `-PjmhIncludes=FullReload`
+// Tests using the benchmark data run with `gradlew :benchmarks:test`.
+
+dependencies {
+    minecraft("com.mojang:minecraft:${rootProject.properties["minecraft_version"]}")
+    mappings(loom.layered {
+        officialMojangMappings()
+        parchment("org.parchmentmc.data:parchment-${rootProject.properties["parchment_version"]}@zip")
+    })
+
+    implementation(project.project(":common").sourceSets.getByName("main").output)
+
+    testImplementation(platform("org.junit:junit-bom:5.11.3"))
+    testImplementation("org.junit.jupiter:junit-jupiter")
+    testRuntimeOnly("org.junit.platform:junit-platform-launcher")
+}
+
+configurations {
+    // make minecraft and the common code available to the benchmarks
+    named("jmhCompileClasspath") { extendsFrom(compileClasspath.get()) }
+    named("jmhRuntimeClasspath") { extendsFrom(runtimeClasspath.get()) }
+}
+
+// the tests use the benchmark data, e.g. to check that reloads don't leak memory
+sourceSets.test {
+    compileClasspath += sourceSets.getByName("jmh").output
+    runtimeClasspath += sourceSets.getByName("jmh").output
+}
+
+loom {
+    accessWidenerPath = project(":common").loom.accessWidenerPath
+}
+
+jmh {
+    jmhVersion = "1.37"
+    warmupIterations = 2
+    iterations = 5
+    fork = 1
+    jvmArgs = listOf("-Xms2G", "-Xmx4G")
+    findProperty("jmhIncludes")?.let { includes = listOf(it.toString()) }
+    // e.g. `-PjmhProfilers=gc` to report allocations and heap usage
+    findProperty("jmhProfilers")?.let { profilers = it.toString().split(",") }
+}
+
+// the benchmarks are not part of any release
+tasks {
+    jar { enabled = false }
+    remapJar { enabled = false }
+
+    test {
+        useJUnitPlatform()
+        maxHeapSize = "2G"
+    }
+}
@@ -0,0 +1,252 @@
+package net.player005.recipe_modification.api;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import net.minecraft.SharedConstants;
+import net.minecraft.core.Holder;
+import net.minecraft.core.HolderLookup;
+import net.minecraft.core.NonNullList;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.data.registries.VanillaRegistries;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.Bootstrap;
+import net.minecraft.tags.TagKey;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.Items;
+import net.minecraft.world.item.crafting.*;
+import net.player005.recipe_modification.impl.JsonFingerprint;
+import net.player005.recipe_modification.serialization.RecipeModifierManager;
+
+import java.util.*;
+import java.util.concurrent.Executor;
+
+/**
+ * Synthesises recipes and recipe modifiers for the benchmarks. Everything is generated from a fixed seed,
+ * so all runs (and all forks) work on the same data.
+ */
+final class BenchmarkData {
+
+    static final int NAMESPACES = 16;
+    static final int TAGS = 32;
+    private static final long SEED = 0x5EED;
+
+    private static HolderLookup.Provider registries;
+    private static List<Item> items;
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Bootstraps the game registries and binds some synthetic item tags. Only does something the first time.
+     */
+    static synchronized HolderLookup.Provider bootstrap() {
+        if (registries != null) return registries;
+        SharedConstants.tryDetectVersion();
+        Bootstrap.bootStrap();
+
+        items = BuiltInRegistries.ITEM.stream().filter(item -> item != Items.AIR).toList();
+        var random = new Random(SEED);
+        var tags = new HashMap<TagKey<Item>, List<Holder<Item>>>();
+        for (int i = 0; i < TAGS; i++) {
+            var holders = new ArrayList<Holder<Item>>();
+            for (int j = 0; j < 4 + random.nextInt(28); j++)
+                holders.add(randomItem(random).builtInRegistryHolder());
+            tags.put(tag(i), holders);
+        }
+        BuiltInRegistries.ITEM.bindTags(tags);
+
+        registries = VanillaRegistries.createLookup();
+        RecipeModification.initPlatform(new BenchmarkPlatform(registries));
+        return registries;
+    }
+
+    static TagKey<Item> tag(int i) {
+        return TagKey.create(Registries.ITEM, ResourceLocation.fromNamespaceAndPath("bench", "tag_" + i));
+    }
+
+    static ResourceLocation recipeId(int i) {
+        return ResourceLocation.fromNamespaceAndPath("bench_" + i % NAMESPACES, "recipe_" + i);
+    }
+
+    private static Item randomItem(Random random) {
+        return items.get(random.nextInt(items.size()));
+    }
+
+    private static Ingredient randomIngredient(Random random) {
+        if (random.nextInt(4) == 0) return Ingredient.of(tag(random.nextInt(TAGS)));
+        return Ingredient.of(randomItem(random));
+    }
+
+    /**
+     * Creates a new recipe manager containing the given number of shapeless crafting and smelting recipes.
+     * Some ingredient instances are shared between recipes, like in some modded recipes.
+     */
+    static RecipeManager createRecipeManager(int recipeCount) {
+        var random = new Random(SEED);
+        var recipes = new ArrayList<RecipeHolder<?>>(recipeCount);
+        var shared = new ArrayList<Ingredient>();
+
+        for (int i = 0; i < recipeCount; i++) {
+            var result = new ItemStack(randomItem(random), 1 + random.nextInt(4));
+            Recipe<?> recipe;
+            if (i % 3 == 2) {
+                recipe = new SmeltingRecipe("", CookingBookCategory.MISC, randomIngredient(random), result,
+                    0.1f, 200);
+            } else {
+                NonNullList<Ingredient> ingredients = NonNullList.create();
+                for (int j = 0; j < 1 + random.nextInt(9); j++) {
+                    if (!shared.isEmpty() && random.nextInt(16) == 0)
+                        ingredients.add(shared.get(random.nextInt(shared.size())));
+                    else ingredients.add(randomIngredient(random));
+                }
+                if (random.nextInt(8) == 0) shared.add(ingredients.getFirst());
+                recipe = new ShapelessRecipe("", CraftingBookCategory.MISC, result, ingredients);
+            }
+            recipes.add(new RecipeHolder<>(recipeId(i), recipe));
+        }
+
+        var recipeManager = new RecipeManager(registries);
+        recipeManager.replaceRecipes(recipes);
+        return recipeManager;
+    }
+
+    /**
+     * Creates the given number of recipe modifiers as they would be read from a datapack,
+     * using a mix of all built-in filters and modifiers.
+     */
+    static Map<ResourceLocation, JsonElement> createModifiers(int modifierCount, int recipeCount) {
+        var random = new Random(SEED);
+        var modifiers = new LinkedHashMap<ResourceLocation, JsonElement>();
+        for (int i = 0; i < modifierCount; i++) {
+            var json = new JsonObject();
+            var modifierList = new JsonArray();
+            switch (i % 6) {
+                case 0 -> {
+                    json.add("target_recipes", filter("namespace_equals", "namespace",
+                        "bench_" + random.nextInt(NAMESPACES)));
+                    modifierList.add(addAlternative(randomItem(random), item(randomItem(random))));
+                }
+                case 1 -> {
+                    json.add("target_recipes", filter("result_item_is", "item", id(randomItem(random))));
+                    modifierList.add(setCount(1 + random.nextInt(16)));
+                }
+                case 2 -> {
+                    var item = new JsonObject();
+                    item.addProperty("id", id(randomItem(random)));
+                    var filter = new JsonObject();
+                    filter.addProperty("type", "accepting_ingredient");
+                    filter.add("item", item);
+                    json.add("target_recipes", filter);
+
+                    var newResult = new JsonObject();
+                    newResult.addProperty("id", id(randomItem(random)));
+                    newResult.addProperty("count", 1);
+                    var modifier = new JsonObject();
+                    modifier.addProperty("type", "replace_result_item");
+                    modifier.add("new_result", newResult);
+                    modifierList.add(modifier);
+                }
+                case 3 -> {
+                    json.add("target_recipes", filter("id_equals", "id",
+                        recipeId(random.nextInt(recipeCount)).toString()));
+                    var modifier = new JsonObject();
+                    modifier.addProperty("type", "remove_recipe");
+                    modifierList.add(modifier);
+                }
+                case 4 -> {
+                    var not = new JsonObject();
+                    not.addProperty("type", "not");
+                    not.add("filter", filter("result_item_is", "items", "#" + tag(random.nextInt(TAGS)).location()));
+                    var filters = new JsonArray();
+                    filters.add(filter("namespace_equals", "namespace", "bench_" + random.nextInt(NAMESPACES)));
+                    filters.add(not);
+                    var and = new JsonObject();
+                    and.addProperty("type", "and");
+                    and.add("filters", filters);
+                    json.add("target_recipes", and);
+
+                    var alternative = new JsonObject();
+                    alternative.addProperty("tag", tag(random.nextInt(TAGS)).location().toString());
+                    modifierList.add(addAlternative(randomItem(random), alternative));
+                }
+                default -> {
+                    var count = new JsonObject();
+                    count.addProperty("min", 2 + random.nextInt(3));
+                    var predicate = new JsonObject();
+                    predicate.add("count", count);
+                    var filter = new JsonObject();
+                    filter.addProperty("type", "result_item_predicate");
+                    filter.add("predicate", predicate);
+                    json.add("target_recipes", filter);
+                    modifierList.add(setCount(1));
+                }
+            }
+            json.add("modifiers", modifierList);
+            modifiers.put(ResourceLocation.fromNamespaceAndPath("bench", "modifier_" + i), json);
+        }
+        return modifiers;
+    }
+
+    private static String id(Item item) {
+        return BuiltInRegistries.ITEM.getKey(item).toString();
+    }
+
+    private static JsonObject filter(String type, String key, String value) {
+        var filter = new JsonObject();
+        filter.addProperty("type", type);
+        filter.addProperty(key, value);
+        return filter;
+    }
+
+    private static JsonObject item(Item item) {
+        var json = new JsonObject();
+        json.addProperty("item", id(item));
+        return json;
+    }
+
+    private static JsonObject addAlternative(Item ingredient, JsonObject alternative) {
+        var modifier = new JsonObject();
+        modifier.addProperty("type", "add_alternative");
+        modifier.addProperty("ingredients", id(ingredient));
+        modifier.add("alternative", alternative);
+        return modifier;
+    }
+
+    private static JsonObject setCount(int count) {
+        var modifier = new JsonObject();
+        modifier.addProperty("type", "modify_result_item");
+        modifier.addProperty("function", "set_count");
+        modifier.addProperty("count", count);
+        return modifier;
+    }
+
+    /**
+     * Gives access to {@link RecipeModifierManager#apply}, which normally only runs on a datapack reload.
+     */
+    static final class ModifierLoader extends RecipeModifierManager {
+
+        void load(Map<ResourceLocation, JsonElement> modifiers) {
+            load(modifiers, Runnable::run);
+        }
+
+        void load(Map<ResourceLocation, JsonElement> modifiers, Executor executor) {
+            apply(parse(modifiers, executor).join());
+        }
+
+        /**
+         * Parses the given modifier files without applying them, and returns the fingerprints of their
+         * recipe filters by id.
+         */
+        Map<ResourceLocation, JsonFingerprint> fingerprints(Map<ResourceLocation, JsonElement> modifiers) {
+            var parsed = parse(modifiers, Runnable::run).join();
+            if (!parsed.errors().isEmpty())
+                throw new IllegalArgumentException("Invalid modifier files: " + parsed.errors());
+            var fingerprints = new HashMap<ResourceLocation, JsonFingerprint>();
+            parsed.fingerprints().forEach((holder, fingerprint) -> fingerprints.put(holder.id(), fingerprint));
+            return fingerprints;
+        }
+    }
+}
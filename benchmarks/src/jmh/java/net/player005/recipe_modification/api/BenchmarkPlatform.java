@@ -0,0 +1,157 @@
+package net.player005.recipe_modification.api;
+
+import com.google.common.collect.MapMaker;
+import it.unimi.dsi.fastutil.ints.IntList;
+import net.minecraft.core.HolderLookup;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.crafting.Ingredient;
+import net.minecraft.world.item.crafting.RecipeHolder;
+import net.minecraft.world.item.crafting.RecipeManager;
+import net.minecraft.world.item.crafting.ShapedRecipe;
+import net.minecraft.world.item.crafting.ShapedRecipePattern;
+import net.player005.recipe_modification.impl.IngredientAccessor;
+import net.player005.recipe_modification.impl.Platform_1_21;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * A {@link Platform} for running the modification pipeline outside a mod loader. Mixins aren't applied
+ * there, so everything they would normally provide is done using public methods and reflection instead.
+ */
+final class BenchmarkPlatform implements Platform {
+
+    private static final VarHandle VALUES;
+    private static final VarHandle ITEM_STACKS;
+    private static final VarHandle STACKING_IDS;
+    // final fields, which can only be set through reflection
+    private static final Field PATTERN;
+    private static final Field PATTERN_DATA;
+
+    static {
+        try {
+            var lookup = MethodHandles.privateLookupIn(Ingredient.class, MethodHandles.lookup());
+            VALUES = lookup.findVarHandle(Ingredient.class, "values", Ingredient.Value[].class);
+            ITEM_STACKS = lookup.findVarHandle(Ingredient.class, "itemStacks", ItemStack[].class);
+            STACKING_IDS = lookup.findVarHandle(Ingredient.class, "stackingIds", IntList.class);
+            PATTERN = ShapedRecipe.class.getDeclaredField("pattern");
+            PATTERN.setAccessible(true);
+            PATTERN_DATA = ShapedRecipePattern.class.getDeclaredField("data");
+            PATTERN_DATA.setAccessible(true);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * Stands in for the cached item ids stored by the ingredient mixin.
+     */
+    private static final Map<Ingredient, BitSet> itemIds = new MapMaker().weakKeys().makeMap();
+
+    /**
+     * Ingredients created by {@link #customIngredient}, by identity.
+     */
+    private static final Map<Ingredient, Boolean> customIngredients = new MapMaker().weakKeys().makeMap();
+
+    private final HolderLookup.Provider registries;
+    private final RecipeHelper helper = new Platform_1_21.RecipeHelper_1_21() {
+        @Override
+        public boolean isCustom(Ingredient ingredient) {
+            return customIngredients.containsKey(ingredient) || super.isCustom(ingredient);
+        }
+
+        @Override
+        protected IngredientAccessor accessor(Ingredient ingredient) {
+            return new IngredientAccessor() {
+                @Override
+                public void replaceValues(Ingredient.Value[] values) {
+                    VALUES.set(ingredient, values);
+                    ITEM_STACKS.set(ingredient, (ItemStack @Nullable []) null);
+                    STACKING_IDS.set(ingredient, (@Nullable IntList) null);
+                    itemIds.remove(ingredient);
+                }
+
+                @Override
+                public Ingredient.Value[] getValues() {
+                    return (Ingredient.Value[]) VALUES.get(ingredient);
+                }
+
+                @Override
+                public BitSet getItemIds() {
+                    return itemIds.computeIfAbsent(ingredient,
+                        key -> IngredientAccessor.computeItemIds(key, getValues()));
+                }
+            };
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        protected Optional<ShapedRecipePattern.Data> getPatternData(ShapedRecipe recipe) {
+            try {
+                return (Optional<ShapedRecipePattern.Data>) PATTERN_DATA.get(PATTERN.get(recipe));
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        protected void setPatternData(ShapedRecipe recipe, Optional<ShapedRecipePattern.Data> data) {
+            try {
+                PATTERN_DATA.set(PATTERN.get(recipe), data);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    };
+
+    /**
+     * Returns an ingredient that stands in for a custom ingredient on fabric: it has no values, and only its
+     * stacks tell which items it accepts.
+     */
+    static Ingredient customIngredient(Item... items) {
+        var ingredient = Ingredient.of(items);
+        VALUES.set(ingredient, new Ingredient.Value[0]);
+        ITEM_STACKS.set(ingredient, Arrays.stream(items).map(ItemStack::new).toArray(ItemStack[]::new));
+        customIngredients.put(ingredient, true);
+        return ingredient;
+    }
+
+    BenchmarkPlatform(HolderLookup.Provider registries) {
+        this.registries = registries;
+    }
+
+    @Override
+    public HolderLookup.Provider getRegistryAccess(RecipeManager recipeManager) {
+        return registries;
+    }
+
+    @Override
+    public @Nullable RecipeHolder<?> getRecipeByID(RecipeManager recipeManager, ResourceLocation id) {
+        return recipeManager.byKey(id).orElse(null);
+    }
+
+    @Override
+    public RecipeHelper getHelper() {
+        return helper;
+    }
+
+    @Override
+    public String getModVersion() {
+        return "benchmark";
+    }
+
+    @Override
+    public void removeRecipes(RecipeManager recipeManager, Set<ResourceLocation> ids) {
+        recipeManager.replaceRecipes(recipeManager.getOrderedRecipes().stream()
+            .filter(recipe -> !ids.contains(recipe.id())).toList());
+    }
+}
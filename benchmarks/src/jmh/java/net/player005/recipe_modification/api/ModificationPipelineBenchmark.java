@@ -0,0 +1,209 @@
+package net.player005.recipe_modification.api;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.item.crafting.RecipeHolder;
+import net.minecraft.world.item.crafting.RecipeManager;
+import net.player005.recipe_modification.serialization.RecipeFilterSerializer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the work done on every datapack reload: loading recipe modifiers from json, and applying them
+ * to all recipes (see {@link RecipeModification#onRecipeManagerLoad(RecipeManager)}), both as a whole
+ * and split into its single phases.
+ * <p>
+ * Run using {@code gradlew :benchmarks:jmh}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ModificationPipelineBenchmark {
+
+    /**
+     * Recipes and modifiers that are created once per trial. Benchmarks using only this state must not
+     * modify any recipes.
+     */
+    @State(Scope.Benchmark)
+    public static class Pipeline {
+
+        @Param({"1000", "10000"})
+        public int recipes;
+
+        @Param({"10", "100", "1000"})
+        public int modifiers;
+
+        @Param({"false", "true"})
+        public boolean parallel;
+
+        Map<ResourceLocation, JsonElement> modifierJson;
+        List<JsonObject> filterJson;
+        BenchmarkData.ModifierLoader loader;
+        RecipeManager recipeManager;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            BenchmarkData.bootstrap();
+            RecipeModification.setParallelApplication(parallel, false);
+
+            modifierJson = BenchmarkData.createModifiers(modifiers, recipes);
+            filterJson = modifierJson.values().stream()
+                .map(json -> json.getAsJsonObject().getAsJsonObject("target_recipes")).toList();
+            loader = new BenchmarkData.ModifierLoader();
+            loader.load(modifierJson);
+
+            recipeManager = BenchmarkData.createRecipeManager(recipes);
+            RecipeModification.beginGeneration(recipeManager);
+        }
+    }
+
+    /**
+     * A new set of unmodified recipes for every invocation.
+     */
+    @State(Scope.Thread)
+    public static class FreshRecipes {
+
+        @Setup(Level.Invocation)
+        public void setup(Pipeline pipeline) {
+            RecipeModification.beginGeneration(BenchmarkData.createRecipeManager(pipeline.recipes));
+            RecipeModification.snapshotBaseResults();
+        }
+
+        @TearDown(Level.Invocation)
+        public void tearDown(Pipeline pipeline) {
+            RecipeModification.beginGeneration(pipeline.recipeManager);
+        }
+    }
+
+    /**
+     * A new set of recipes with all modifiers already applied for every invocation, for benchmarking
+     * recipe removal and the ingredient phases after it.
+     */
+    @State(Scope.Thread)
+    public static class ModifiedRecipes {
+
+        @Setup(Level.Invocation)
+        public void setup(Pipeline pipeline) {
+            RecipeModification.beginGeneration(BenchmarkData.createRecipeManager(pipeline.recipes));
+            RecipeModification.snapshotBaseResults();
+            RecipeModification.applyModifiers(RecipeModification.getAllModifiers());
+        }
+
+        @TearDown(Level.Invocation)
+        public void tearDown(Pipeline pipeline) {
+            RecipeModification.beginGeneration(pipeline.recipeManager);
+        }
+    }
+
+    @Benchmark
+    public void fullReload(Pipeline pipeline, FreshRecipes recipes) {
+        pipeline.loader.load(pipeline.modifierJson);
+        RecipeModification.onRecipeManagerLoad(RecipeModification.getRecipeManager());
+    }
+
+    @Benchmark
+    public void parseFilters(Pipeline pipeline, Blackhole blackhole) {
+        for (var json : pipeline.filterJson) blackhole.consume(RecipeFilterSerializer.fromJson(json));
+    }
+
+    @Benchmark
+    public void loadModifiers(Pipeline pipeline) {
+        pipeline.loader.load(pipeline.modifierJson);
+    }
+
+    @Benchmark
+    public void loadModifiersParallel(Pipeline pipeline) {
+        pipeline.loader.load(pipeline.modifierJson, ForkJoinPool.commonPool());
+    }
+
+    @Benchmark
+    public void snapshotBaseResults(Pipeline pipeline) {
+        RecipeModification.snapshotBaseResults();
+    }
+
+    /**
+     * Builds the recipe by result map of a new generation, which happens the first time it is used.
+     */
+    @Benchmark
+    public int buildRecipesByResult(Pipeline pipeline, FreshRecipes recipes) {
+        return RecipeModification.getRecipesByResult().size();
+    }
+
+    /**
+     * Finds all matching modifiers for every recipe, without applying them.
+     */
+    @Benchmark
+    public int evaluateFilters(Pipeline pipeline) {
+        var registryAccess = RecipeModification.getRegistryAccess();
+        var modifiers = RecipeModification.getAllModifiers();
+        var index = new RecipeIndex(pipeline.recipeManager, registryAccess);
+        var applier = new ModificationApplier(modifiers, index, registryAccess,
+            RecipeModification.getPlatform().getHelper());
+
+        var matches = 0;
+        for (RecipeHolder<?> recipe : pipeline.recipeManager.getRecipes()) {
+            var candidates = applier.candidatesOf(recipe);
+            for (int i = 0; i < modifiers.size(); i++) {
+                if (applier.isCandidate(i, candidates) && modifiers.get(i).filter().shouldApply(recipe, registryAccess))
+                    matches++;
+            }
+        }
+        return matches;
+    }
+
+    @Benchmark
+    public int applyModifiers(Pipeline pipeline, FreshRecipes recipes) {
+        return RecipeModification.applyModifiers(RecipeModification.getAllModifiers());
+    }
+
+    @Benchmark
+    public void removeRecipes(Pipeline pipeline, ModifiedRecipes recipes) {
+        RecipeModification.removeRecipes();
+    }
+
+    @Benchmark
+    public long internIngredients(Pipeline pipeline, ModifiedRecipes recipes) {
+        return RecipeModification.internIngredients();
+    }
+
+    @Benchmark
+    public int prewarmIngredients(Pipeline pipeline, ModifiedRecipes recipes) {
+        return RecipeModification.prewarmIngredients();
+    }
+
+    /**
+     * Counts the ingredients of all recipes using the recipe visitor, as requested during a reload.
+     */
+    @Benchmark
+    public int mapReduceRecipes(Pipeline pipeline) {
+        var ingredients = RecipeModification.mapReduceRecipes(
+            recipe -> recipe.value().getIngredients().size(), 0, Integer::sum);
+        RecipeModification.runDeferredVisits();
+        return ingredients.join();
+    }
+
+    /**
+     * Previews the result of every modified recipe ten times, like a recipe viewer drawing the same recipes
+     * every frame. Mixins aren't applied here, so the results are modified like those of recipe classes not
+     * covered by them.
+     */
+    @Benchmark
+    public void previewResults(Pipeline pipeline, ModifiedRecipes recipes, Blackhole blackhole) {
+        var registryAccess = RecipeModification.getRegistryAccess();
+        for (int i = 0; i < 10; i++)
+            for (var recipe : RecipeModification.getRecipeManager().getRecipes()) {
+                var result = recipe.value().getResultItem(registryAccess);
+                blackhole.consume(RecipeModification.getRecipeResult(recipe.value(), result, null));
+            }
+    }
+
+    @Benchmark
+    public int buildRecipesByIngredient(Pipeline pipeline, ModifiedRecipes recipes) {
+        return RecipeModification.buildRecipesByIngredient();
+    }
+}
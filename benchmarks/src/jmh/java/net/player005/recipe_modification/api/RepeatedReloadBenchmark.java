@@ -0,0 +1,49 @@
+package net.player005.recipe_modification.api;
+
+import com.google.gson.JsonElement;
+import net.minecraft.resources.ResourceLocation;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs many reloads in a row, like a long-running server using {@code /reload}. Run it with
+ * {@code -PjmhProfilers=gc} to see whether the heap grows over the reloads. That recipes of previous reloads
+ * aren't kept reachable is checked by {@code RepeatedReloadTest}.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 3)
+@State(Scope.Benchmark)
+public class RepeatedReloadBenchmark {
+
+    @Param({"1000"})
+    public int recipes;
+
+    @Param({"100"})
+    public int modifiers;
+
+    @Param({"50"})
+    public int reloads;
+
+    private Map<ResourceLocation, JsonElement> modifierJson;
+    private BenchmarkData.ModifierLoader loader;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchmarkData.bootstrap();
+        modifierJson = BenchmarkData.createModifiers(modifiers, recipes);
+        loader = new BenchmarkData.ModifierLoader();
+    }
+
+    @Benchmark
+    public void reload() {
+        for (int i = 0; i < reloads; i++) {
+            var recipeManager = BenchmarkData.createRecipeManager(recipes);
+            loader.load(modifierJson);
+            RecipeModification.onRecipeManagerLoad(recipeManager);
+        }
+    }
+}
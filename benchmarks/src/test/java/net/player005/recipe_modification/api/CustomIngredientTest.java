@@ -0,0 +1,44 @@
+package net.player005.recipe_modification.api;
+
+import net.minecraft.core.NonNullList;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.Items;
+import net.minecraft.world.item.crafting.CraftingBookCategory;
+import net.minecraft.world.item.crafting.Ingredient;
+import net.minecraft.world.item.crafting.RecipeHolder;
+import net.minecraft.world.item.crafting.RecipeManager;
+import net.minecraft.world.item.crafting.ShapelessRecipe;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that recipes with custom ingredients, which have no values, are still found by item.
+ */
+class CustomIngredientTest {
+
+    @Test
+    void customIngredientsAreCandidatesForTheirItems() {
+        var registries = BenchmarkData.bootstrap();
+        var ingredient = BenchmarkPlatform.customIngredient(Items.STICK);
+        var recipe = new RecipeHolder<>(ResourceLocation.fromNamespaceAndPath("test", "custom"),
+            new ShapelessRecipe("", CraftingBookCategory.MISC, new ItemStack(Items.STONE),
+                NonNullList.of(Ingredient.EMPTY, ingredient)));
+        var recipeManager = new RecipeManager(registries);
+        recipeManager.replaceRecipes(List.of(recipe));
+        var index = new RecipeIndex(recipeManager, registries);
+
+        var acceptedItems = RecipeModification.getPlatform().getHelper().getAcceptedItems(ingredient);
+        assertTrue(acceptedItems.get(BuiltInRegistries.ITEM.getId(Items.STICK)));
+        assertTrue(index.byIngredient(Items.STICK).contains(recipe));
+
+        var candidates = RecipeFilter.acceptsIngredient(new ItemStack(Items.STICK)).candidates(index);
+        assertNotNull(candidates);
+        assertTrue(candidates.contains(recipe), "the recipe isn't a candidate of a filter accepting its item");
+    }
+}
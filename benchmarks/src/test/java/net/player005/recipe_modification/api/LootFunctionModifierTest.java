@@ -0,0 +1,70 @@
+package net.player005.recipe_modification.api;
+
+import com.google.gson.JsonParser;
+import com.mojang.serialization.JsonOps;
+import net.minecraft.core.NonNullList;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.Items;
+import net.minecraft.world.item.crafting.CraftingBookCategory;
+import net.minecraft.world.item.crafting.Ingredient;
+import net.minecraft.world.item.crafting.Recipe;
+import net.minecraft.world.item.crafting.ShapelessRecipe;
+import net.minecraft.world.level.storage.loot.functions.LootItemFunction;
+import net.minecraft.world.level.storage.loot.functions.LootItemFunctions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks which item modifiers are folded into the result of a recipe, and that those needing a loot context are
+ * rejected instead of failing when the recipe is crafted.
+ */
+class LootFunctionModifierTest {
+
+    private static Recipe<?> recipe;
+
+    @BeforeAll
+    static void bootstrap() {
+        BenchmarkData.bootstrap();
+        recipe = new ShapelessRecipe("", CraftingBookCategory.MISC, new ItemStack(Items.STICK),
+            NonNullList.of(Ingredient.EMPTY, Ingredient.of(Items.OAK_PLANKS)));
+    }
+
+    @Test
+    void foldsConstantCount() {
+        var function = function("""
+            {"function": "minecraft:set_count", "count": 3}""");
+
+        assertTrue(LootFunctionModifier.canFold(recipe, function));
+        assertTrue(new LootFunctionModifier(function).isPure());
+        assertEquals(3, LootFunctionModifier.apply(function, new ItemStack(Items.STICK)).getCount());
+    }
+
+    @Test
+    void rejectsUniformCount() {
+        var function = function("""
+            {"function": "minecraft:set_count", "count": {"type": "minecraft:uniform", "min": 1, "max": 3}}""");
+
+        assertTrue(LootFunctionModifier.needsContext(function));
+        assertFalse(LootFunctionModifier.canFold(recipe, function));
+        assertFalse(new LootFunctionModifier(function).isPure());
+        assertThrows(IllegalArgumentException.class, () -> RecipeModifier.modifyResultItem(function));
+    }
+
+    @Test
+    void rejectsConditions() {
+        var function = function("""
+            {"function": "minecraft:set_damage", "damage": 0.5,
+             "conditions": [{"condition": "minecraft:random_chance", "chance": 0.5}]}""");
+
+        assertTrue(LootFunctionModifier.needsContext(function));
+        assertFalse(LootFunctionModifier.canFold(recipe, function));
+        assertFalse(new LootFunctionModifier(function).isPure());
+        assertThrows(IllegalArgumentException.class, () -> RecipeModifier.modifyResultItem(function));
+    }
+
+    private static LootItemFunction function(String json) {
+        return LootItemFunctions.CODEC.parse(JsonOps.INSTANCE, JsonParser.parseString(json)).getOrThrow().value();
+    }
+}
@@ -0,0 +1,56 @@
+package net.player005.recipe_modification.api;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import net.minecraft.resources.ResourceLocation;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+/**
+ * Checks that the fingerprints deciding which match cache entries are still valid cover the whole recipe filter
+ * of a modifier file.
+ */
+class ModifierFingerprintTest {
+
+    private static final ResourceLocation STICKS = ResourceLocation.fromNamespaceAndPath("test", "sticks");
+    private static final ResourceLocation STONES = ResourceLocation.fromNamespaceAndPath("test", "stones");
+
+    @Test
+    void filesDifferingOnlyInPredicateItemsHaveDifferentFingerprints() {
+        BenchmarkData.bootstrap();
+        var sticks = modifier("minecraft:stick");
+        var stones = modifier("minecraft:stone");
+        var sticksBefore = sticks.deepCopy();
+
+        var fingerprints = new BenchmarkData.ModifierLoader().fingerprints(Map.of(STICKS, sticks, STONES, stones));
+
+        assertNotEquals(fingerprints.get(STICKS).hash(), fingerprints.get(STONES).hash());
+        assertEquals(sticksBefore, sticks, "parsing changed the modifier file");
+    }
+
+    private static JsonElement modifier(String item) {
+        var count = new JsonObject();
+        count.addProperty("min", 2);
+        var predicate = new JsonObject();
+        predicate.addProperty("items", item);
+        predicate.add("count", count);
+        var filter = new JsonObject();
+        filter.addProperty("type", "result_item_predicate");
+        filter.add("predicate", predicate);
+
+        var modifier = new JsonObject();
+        modifier.addProperty("type", "remove_recipe");
+        var modifiers = new JsonArray();
+        modifiers.add(modifier);
+
+        var json = new JsonObject();
+        json.add("target_recipes", filter);
+        json.add("modifiers", modifiers);
+        return json;
+    }
+}
@@ -0,0 +1,41 @@
+package net.player005.recipe_modification.api;
+
+import net.minecraft.world.item.crafting.RecipeManager;
+import org.junit.jupiter.api.Test;
+
+import java.lang.ref.WeakReference;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Checks that nothing keeps the recipes of previous reloads reachable, like on a long-running server
+ * using {@code /reload}.
+ */
+class RepeatedReloadTest {
+
+    private static final int RECIPES = 1000;
+    private static final int MODIFIERS = 100;
+    private static final int RELOADS = 20;
+
+    @Test
+    void previousReloadsAreNotRetained() throws InterruptedException {
+        BenchmarkData.bootstrap();
+        var modifierJson = BenchmarkData.createModifiers(MODIFIERS, RECIPES);
+        var loader = new BenchmarkData.ModifierLoader();
+
+        var firstRecipeManager = new WeakReference<RecipeManager>(null);
+        for (int i = 0; i < RELOADS; i++) {
+            var recipeManager = BenchmarkData.createRecipeManager(RECIPES);
+            loader.load(modifierJson);
+            RecipeModification.onRecipeManagerLoad(recipeManager);
+            if (i == 0) firstRecipeManager = new WeakReference<>(recipeManager);
+        }
+
+        for (int i = 0; i < 10 && firstRecipeManager.get() != null; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        assertNull(firstRecipeManager.get(), "Recipes of the first reload are still reachable after " + RELOADS +
+            " reloads");
+    }
+}
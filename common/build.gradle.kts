@@ -21,6 +21,11 @@ dependencies {
     modImplementation("net.fabricmc:fabric-loader:${rootProject.properties["fabric_loader_version"]}")
 
     // add your dependencies here
+
+    // tests only cover code that doesn't need a bootstrapped game
+    testImplementation(platform("org.junit:junit-bom:5.11.3"))
+    testImplementation("org.junit.jupiter:junit-jupiter")
+    testRuntimeOnly("org.junit.platform:junit-platform-launcher")
 }
 
 loom {
@@ -35,4 +40,6 @@ loom {
 tasks {
     jar { enabled = false }
     remapJar { enabled = false }
+
+    test { useJUnitPlatform() }
 }
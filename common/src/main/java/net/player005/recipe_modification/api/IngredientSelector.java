@@ -2,7 +2,6 @@ package net.player005.recipe_modification.api;
 
 import net.minecraft.tags.TagKey;
 import net.minecraft.world.item.Item;
-import net.minecraft.world.item.ItemStack;
 import net.minecraft.world.item.crafting.Ingredient;
 import net.minecraft.world.item.crafting.Recipe;
 
@@ -47,8 +46,7 @@ public interface IngredientSelector {
         return (recipe, helper) -> {
             var toReturn = new ArrayList<Ingredient>();
             for (var ingredient : recipe.getIngredients())
-                for (ItemStack ingredientItem : ingredient.getItems())
-                    if (ingredientItem.is(item)) toReturn.add(ingredient);
+                if (helper.acceptsItem(ingredient, item)) toReturn.add(ingredient);
             return toReturn.toArray(Ingredient[]::new);
         };
     }
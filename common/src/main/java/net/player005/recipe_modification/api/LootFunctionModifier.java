@@ -0,0 +1,109 @@
+package net.player005.recipe_modification.api;
+
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.crafting.*;
+import net.minecraft.world.level.storage.loot.functions.*;
+import net.minecraft.world.level.storage.loot.providers.number.ConstantValue;
+import net.minecraft.world.level.storage.loot.providers.number.NumberProvider;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Set;
+
+/**
+ * Applies a loot item function (an item modifier) to the result of a recipe, without a loot context.
+ * <p>
+ * All randomness, conditions and entities of loot functions come from the loot context. Functions that need
+ * any of them (see {@link #needsContext}) can't be applied to recipe results at all. Other functions of the
+ * types in {@link #CONTEXT_FREE_TYPES} only depend on the stack they are given, so they can be applied to the
+ * result once, and stored as its override (see {@link RecipeModification#modifyResultItem(Recipe, LootItemFunction)}).
+ */
+final class LootFunctionModifier implements ResultItemModifier {
+
+    /**
+     * Function types that only set something on the stack, as long as they don't {@linkplain #needsContext need
+     * the loot context}.
+     */
+    private static final Set<LootItemFunctionType<?>> CONTEXT_FREE_TYPES = Set.of(
+        LootItemFunctions.SET_COUNT, LootItemFunctions.LIMIT_COUNT, LootItemFunctions.SET_ITEM,
+        LootItemFunctions.SET_NAME, LootItemFunctions.SET_LORE, LootItemFunctions.SET_COMPONENTS,
+        LootItemFunctions.SET_CUSTOM_DATA, LootItemFunctions.SET_DAMAGE, LootItemFunctions.SET_ENCHANTMENTS,
+        LootItemFunctions.SET_POTION, LootItemFunctions.SET_BANNER_PATTERN, LootItemFunctions.SET_FIREWORKS,
+        LootItemFunctions.SET_FIREWORK_EXPLOSION, LootItemFunctions.SET_BOOK_COVER,
+        LootItemFunctions.SET_WRITTEN_BOOK_PAGES, LootItemFunctions.SET_WRITABLE_BOOK_PAGES,
+        LootItemFunctions.TOGGLE_TOOLTIPS
+    );
+
+    /**
+     * Recipe classes that assemble exactly the result they show, so that their result can be overridden.
+     * Others, like smithing recipes, build their result from the input.
+     */
+    private static final Set<Class<?>> FOLDABLE_RECIPES = Set.of(
+        ShapedRecipe.class, ShapelessRecipe.class, StonecutterRecipe.class, SmeltingRecipe.class,
+        BlastingRecipe.class, SmokingRecipe.class, CampfireCookingRecipe.class
+    );
+
+    private final LootItemFunction function;
+
+    LootFunctionModifier(LootItemFunction function) {
+        this.function = function;
+    }
+
+    /**
+     * Returns whether the given function can be applied to the result of the given recipe once, instead of on
+     * every call.
+     */
+    static boolean canFold(Recipe<?> recipe, LootItemFunction function) {
+        return FOLDABLE_RECIPES.contains(recipe.getClass()) && isContextFree(function);
+    }
+
+    private static boolean isContextFree(LootItemFunction function) {
+        return CONTEXT_FREE_TYPES.contains(function.getType()) && !needsContext(function);
+    }
+
+    /**
+     * Returns whether the given function needs a loot context, because it references context parameters (like
+     * entities), has conditions, or uses number providers that aren't constant (like {@code uniform}, which
+     * needs the random source of the context).
+     */
+    static boolean needsContext(LootItemFunction function) {
+        if (!function.getReferencedContextParams().isEmpty()) return true;
+        if (function instanceof LootItemConditionalFunction conditional && !conditional.predicates.isEmpty())
+            return true;
+        return switch (function) {
+            case SetItemCountFunction setCount -> !isConstant(setCount.value);
+            case SetItemDamageFunction setDamage -> !isConstant(setDamage.damage);
+            case SetEnchantmentsFunction setEnchantments ->
+                !setEnchantments.enchantments.values().stream().allMatch(LootFunctionModifier::isConstant);
+            case LimitCount limitCount -> !isConstant(limitCount.limiter.min) || !isConstant(limitCount.limiter.max);
+            default -> false;
+        };
+    }
+
+    /**
+     * @throws IllegalArgumentException if the given function {@linkplain #needsContext needs a loot context}
+     */
+    static void requireNoContext(LootItemFunction function) {
+        if (needsContext(function))
+            throw new IllegalArgumentException("Item modifier " + function.getType() + " can't be applied to " +
+                "recipe results, as it has conditions, uses random numbers or references entities");
+    }
+
+    private static boolean isConstant(@Nullable NumberProvider provider) {
+        return provider == null || provider instanceof ConstantValue;
+    }
+
+    static ItemStack apply(LootItemFunction function, ItemStack stack) {
+        return function.apply(stack, null);
+    }
+
+    @Override
+    public ItemStack getResultItem(Recipe<?> recipe, ItemStack result, @Nullable RecipeInput recipeInput) {
+        return apply(function, result);
+    }
+
+    @Override
+    public boolean isPure() {
+        // other functions may depend on the world or have side effects, even without a loot context
+        return isContextFree(function);
+    }
+}
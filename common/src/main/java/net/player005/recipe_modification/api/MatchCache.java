@@ -0,0 +1,222 @@
+package net.player005.recipe_modification.api;
+
+import com.google.common.base.Stopwatch;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.Util;
+import net.minecraft.core.HolderLookup;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.tags.TagKey;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.crafting.RecipeHolder;
+import net.player005.recipe_modification.impl.JsonFingerprint;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static net.player005.recipe_modification.api.RecipeModification.logger;
+
+/**
+ * Remembers which datapack modifiers matched which recipes on previous reloads, so that filters don't have to be
+ * tested again if neither the recipe nor the filter changed.
+ * <p>
+ * Recipes and filters are identified by a {@link JsonFingerprint} of their json, including the contents of all item
+ * tags they reference. Only results for recipes that weren't modified yet are stored, as filters see the changes of
+ * earlier modifiers on the same recipe.
+ * <p>
+ * If a plan file is given, the cache is loaded from it once, and written back after every reload that changed it
+ * (see {@link MatchCacheFile}). As everything is identified by fingerprints, a warm start with unchanged datapacks
+ * doesn't have to test any filter on unmodified recipes.
+ */
+final class MatchCache {
+
+    private static final int UNCACHED = -1;
+
+    private boolean started;
+    private @Nullable Path file;
+    /**
+     * The {@link MatchCacheFile#key} of the mod version and registries the entries were tested with. Every reload
+     * creates new registry lookups, so they are compared by their contents.
+     */
+    private long key;
+    private CompletableFuture<?> pendingWrite = CompletableFuture.completedFuture(null);
+
+    /**
+     * The bit used for each filter in the entries, by fingerprint. Stays the same across reloads.
+     */
+    private final Long2IntOpenHashMap filterSlots = new Long2IntOpenHashMap();
+    private Long2ObjectMap<Entry> entries = new Long2ObjectOpenHashMap<>();
+
+    /**
+     * Starts using this cache for a reload of the given modifiers.
+     *
+     * @param file               the plan file of the current world, or null to only keep the cache in memory
+     * @param recipeFingerprints the fingerprints of all recipes loaded from json
+     * @param filterFingerprints the fingerprints of the filters of all modifiers loaded from json
+     */
+    Session start(List<RecipeModifierHolder> modifiers, HolderLookup.Provider registries, @Nullable Path file,
+                  String modVersion, Map<ResourceLocation, JsonFingerprint> recipeFingerprints,
+                  Map<RecipeModifierHolder, JsonFingerprint> filterFingerprints) {
+        var key = MatchCacheFile.key(modVersion, registries);
+        if (!started || this.key != key || !Objects.equals(this.file, file)) {
+            started = true;
+            this.key = key;
+            this.file = file;
+            filterSlots.clear();
+            entries = new Long2ObjectOpenHashMap<>();
+            if (file != null) load(file);
+        }
+        // filters removed from the datapacks keep their slot, so start over once there are too many of them
+        if (filterSlots.size() > 2 * modifiers.size() + 64) {
+            filterSlots.clear();
+            entries = new Long2ObjectOpenHashMap<>();
+        }
+        return new Session(modifiers, recipeFingerprints, filterFingerprints);
+    }
+
+    private void load(Path file) {
+        var timer = Stopwatch.createStarted();
+        pendingWrite.join();
+        if (MatchCacheFile.read(file, key, filterSlots, entries))
+            logger.info("Loaded recipe modification plan for {} recipes in {}", entries.size(), timer);
+    }
+
+    private void save() {
+        var file = this.file;
+        if (file == null) return;
+        // the next reload may change the slots, but only adds to the entries, which are copied while locked
+        var filterSlots = new Long2IntOpenHashMap(this.filterSlots);
+        var entries = this.entries;
+        var key = this.key;
+        pendingWrite = pendingWrite.thenRunAsync(() -> {
+            try {
+                MatchCacheFile.write(file, key, filterSlots, entries);
+            } catch (IOException e) {
+                logger.warn("Failed to save recipe modification plan to {}", file, e);
+            }
+        }, Util.ioPool());
+    }
+
+    final class Session {
+
+        private final List<RecipeModifierHolder> modifiers;
+        private final Map<ResourceLocation, JsonFingerprint> recipeFingerprints;
+        private final int[] slots;
+        private final Map<TagKey<Item>, Long> tagHashes = new ConcurrentHashMap<>();
+        private final Map<Long, Entry> usedEntries = new ConcurrentHashMap<>();
+
+        private final int previousEntries = entries.size();
+        private final LongAdder newEntries = new LongAdder();
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LongAdder missNanos = new LongAdder();
+
+        private Session(List<RecipeModifierHolder> modifiers, Map<ResourceLocation, JsonFingerprint> recipeFingerprints,
+                        Map<RecipeModifierHolder, JsonFingerprint> filterFingerprints) {
+            this.modifiers = modifiers;
+            this.recipeFingerprints = recipeFingerprints;
+            this.slots = new int[modifiers.size()];
+            for (int i = 0; i < slots.length; i++) {
+                var fingerprint = filterFingerprints.get(modifiers.get(i));
+                slots[i] = fingerprint == null ? UNCACHED
+                    : filterSlots.computeIfAbsent(fingerprint.resolve(this::tagHash), key -> filterSlots.size());
+            }
+        }
+
+        private long tagHash(TagKey<Item> tag) {
+            return tagHashes.computeIfAbsent(tag, JsonFingerprint::hashTag);
+        }
+
+        /**
+         * Returns the cached results for the given recipe, or null if it wasn't loaded from json.
+         */
+        @Nullable Entry entryOf(RecipeHolder<?> recipe) {
+            var fingerprint = recipeFingerprints.get(recipe.id());
+            if (fingerprint == null) return null;
+            return usedEntries.computeIfAbsent(fingerprint.resolve(this::tagHash, recipe.id().toString()), key -> {
+                var previous = entries.get((long) key);
+                if (previous != null) return previous;
+                newEntries.increment();
+                return new Entry();
+            });
+        }
+
+        /**
+         * Tests the filter of the modifier at the given index against the given unmodified recipe, using the
+         * result of a previous reload if possible.
+         */
+        boolean shouldApply(@Nullable Entry entry, int modifier, RecipeHolder<?> recipe,
+                            HolderLookup.Provider registryAccess) {
+            var filter = modifiers.get(modifier).filter();
+            var slot = slots[modifier];
+            if (entry == null || slot == UNCACHED) return filter.shouldApply(recipe, registryAccess);
+
+            var cached = entry.get(slot);
+            if (cached != null) {
+                hits.increment();
+                return cached;
+            }
+            var start = System.nanoTime();
+            var result = filter.shouldApply(recipe, registryAccess);
+            missNanos.add(System.nanoTime() - start);
+            misses.increment();
+            entry.put(slot, result);
+            return result;
+        }
+
+        /**
+         * Keeps the entries of all recipes of this reload for the next one, drops all others, and saves the
+         * result if anything changed.
+         */
+        void finish() {
+            entries = new Long2ObjectOpenHashMap<>(usedEntries);
+            long hits = this.hits.sum(), misses = this.misses.sum();
+            if (misses > 0 || newEntries.sum() > 0 || previousEntries != entries.size()) save();
+            if (hits + misses == 0) return;
+            var saved = misses == 0 ? 0 : missNanos.sum() * hits / misses;
+            logger.info("Reused {} of {} filter results from previous reloads, saving about {} ms",
+                hits, hits + misses, TimeUnit.NANOSECONDS.toMillis(saved));
+        }
+    }
+
+    /**
+     * The results of all filters tested on an unmodified recipe so far.
+     */
+    static final class Entry {
+
+        private final BitSet tested;
+        private final BitSet matched;
+
+        Entry() {
+            this(new BitSet(), new BitSet());
+        }
+
+        Entry(BitSet tested, BitSet matched) {
+            this.tested = tested;
+            this.matched = matched;
+        }
+
+        synchronized @Nullable Boolean get(int slot) {
+            return tested.get(slot) ? matched.get(slot) : null;
+        }
+
+        synchronized void put(int slot, boolean matches) {
+            tested.set(slot);
+            matched.set(slot, matches);
+        }
+
+        synchronized long[][] toLongArrays() {
+            return new long[][]{tested.toLongArray(), matched.toLongArray()};
+        }
+    }
+}
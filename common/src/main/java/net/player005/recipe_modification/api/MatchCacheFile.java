@@ -0,0 +1,185 @@
+package net.player005.recipe_modification.api;
+
+import it.unimi.dsi.fastutil.HashCommon;
+import it.unimi.dsi.fastutil.longs.Long2IntMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import net.minecraft.core.HolderLookup;
+import net.minecraft.resources.ResourceKey;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.zip.CRC32;
+
+import static net.player005.recipe_modification.api.RecipeModification.logger;
+
+/**
+ * Stores the contents of a {@link MatchCache} in a binary file, so it survives server restarts.
+ * <p>
+ * The file starts with a key identifying the mod version and the registries it was written with, followed by the
+ * filter fingerprints by slot and the entries by recipe fingerprint, and ends with a CRC32 of everything before it.
+ * Files with a different key, or that are damaged in any way, are ignored and overwritten on the next save.
+ */
+final class MatchCacheFile {
+
+    private static final int MAGIC = 0x524d5043; // "RMPC"
+    private static final int FORMAT_VERSION = 1;
+
+    private MatchCacheFile() {
+    }
+
+    /**
+     * Hashes of the element ids of each registry. Every reload creates a new registry lookup, but the lookups
+     * of the single registries are kept as long as the registries exist, so each of them is only hashed once.
+     */
+    private static final Map<HolderLookup.RegistryLookup<?>, Long> registryHashes =
+        Collections.synchronizedMap(new WeakHashMap<>());
+
+    /**
+     * Returns the key identifying the given mod version and the contents of the given registries.
+     */
+    static long key(String modVersion, HolderLookup.Provider registries) {
+        var crc = new CRC32();
+        crc.update(modVersion.getBytes(StandardCharsets.UTF_8));
+        long hash = crc.getValue();
+        var registryKeys = registries.listRegistries().sorted(Comparator.comparing(ResourceKey::location)).toList();
+        for (var registryKey : registryKeys) {
+            var registry = registries.lookupOrThrow(registryKey);
+            hash = hash * 31 + registryKey.location().hashCode();
+            hash = hash * 31 + registryHashes.computeIfAbsent(registry, MatchCacheFile::hashElements);
+        }
+        return hash;
+    }
+
+    /**
+     * Hashes the ids of all elements of the given registry, independent of their order, so they don't have
+     * to be sorted.
+     */
+    private static long hashElements(HolderLookup.RegistryLookup<?> registry) {
+        long hash = 0;
+        long count = 0;
+        for (var element : (Iterable<? extends ResourceKey<?>>) registry.listElementIds()::iterator) {
+            hash += HashCommon.mix((long) element.location().hashCode());
+            count++;
+        }
+        return hash * 31 + count;
+    }
+
+    /**
+     * Reads the given file into the given (empty) maps.
+     *
+     * @return false if the file doesn't exist, or can't be used
+     */
+    static boolean read(Path file, long key, Long2IntMap filterSlots, Long2ObjectMap<MatchCache.Entry> entries) {
+        try {
+            // read into the heap rather than mapping the file, as mapped files can't be replaced on windows
+            var buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+            if (buffer.remaining() < Integer.BYTES) throw new CorruptFileException("too short");
+
+            var crc = new CRC32();
+            crc.update(buffer.slice(0, buffer.limit() - Integer.BYTES));
+            if ((int) crc.getValue() != buffer.getInt(buffer.limit() - Integer.BYTES))
+                throw new CorruptFileException("checksum mismatch");
+
+            if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION)
+                throw new CorruptFileException("unknown format");
+            if (buffer.getLong() != key) {
+                logger.info("Recipe modification plan in {} is outdated, rebuilding it", file);
+                return false;
+            }
+
+            var slotCount = buffer.getInt();
+            for (int slot = 0; slot < slotCount; slot++) filterSlots.put(buffer.getLong(), slot);
+            var entryCount = buffer.getInt();
+            for (int i = 0; i < entryCount; i++) {
+                var recipe = buffer.getLong();
+                var tested = readBits(buffer);
+                entries.put(recipe, new MatchCache.Entry(tested, readBits(buffer)));
+            }
+            return true;
+        } catch (NoSuchFileException e) {
+            return false;
+        } catch (IOException | CorruptFileException | BufferUnderflowException | IllegalArgumentException |
+                 NegativeArraySizeException e) {
+            logger.warn("Can't read recipe modification plan {}, rebuilding it: {}", file, e.toString());
+            filterSlots.clear();
+            entries.clear();
+            return false;
+        }
+    }
+
+    /**
+     * Writes the given maps to the given file, replacing it atomically. If the file can't be replaced, it is
+     * left as it is, and the entries that weren't saved are computed again after the next restart.
+     */
+    static void write(Path file, long key, Long2IntMap filterSlots, Long2ObjectMap<MatchCache.Entry> entries)
+        throws IOException {
+        var fingerprints = new long[filterSlots.size()];
+        for (var slot : filterSlots.long2IntEntrySet()) fingerprints[slot.getIntValue()] = slot.getLongKey();
+
+        var size = 2 * Integer.BYTES + Long.BYTES + Integer.BYTES + fingerprints.length * Long.BYTES + Integer.BYTES;
+        var recipes = new long[entries.size()];
+        var bits = new long[entries.size()][][];
+        var i = 0;
+        for (var entry : entries.long2ObjectEntrySet()) {
+            recipes[i] = entry.getLongKey();
+            bits[i] = entry.getValue().toLongArrays();
+            size += Long.BYTES + 2 * Integer.BYTES + (bits[i][0].length + bits[i][1].length) * Long.BYTES;
+            i++;
+        }
+
+        var buffer = ByteBuffer.allocate(size + Integer.BYTES);
+        buffer.putInt(MAGIC).putInt(FORMAT_VERSION).putLong(key);
+        buffer.putInt(fingerprints.length);
+        for (var fingerprint : fingerprints) buffer.putLong(fingerprint);
+        buffer.putInt(recipes.length);
+        for (i = 0; i < recipes.length; i++) {
+            buffer.putLong(recipes[i]);
+            writeBits(buffer, bits[i][0]);
+            writeBits(buffer, bits[i][1]);
+        }
+        var crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.putInt((int) crc.getValue());
+
+        Files.createDirectories(file.getParent());
+        var temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(temporary, buffer.array());
+        try {
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // e.g. while another process has the file open on windows
+            logger.warn("Can't replace recipe modification plan {}, it will be partly rebuilt after restarting: {}",
+                file, e.toString());
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private static BitSet readBits(ByteBuffer buffer) {
+        var words = new long[buffer.getInt()];
+        buffer.asLongBuffer().get(words);
+        buffer.position(buffer.position() + words.length * Long.BYTES);
+        return BitSet.valueOf(words);
+    }
+
+    private static void writeBits(ByteBuffer buffer, long[] words) {
+        buffer.putInt(words.length);
+        for (var word : words) buffer.putLong(word);
+    }
+
+    private static final class CorruptFileException extends Exception {
+        CorruptFileException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package net.player005.recipe_modification.api;
+
+import net.minecraft.core.HolderLookup;
+import net.minecraft.world.item.crafting.RecipeHolder;
+import net.player005.recipe_modification.impl.jfr.ModifierApplicationEvent;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static net.player005.recipe_modification.api.RecipeModification.logger;
+
+/**
+ * Applies a list of {@link RecipeModifierHolder}s to single recipes, testing each recipe only against the
+ * modifiers that could match it according to a {@link RecipeIndex}.
+ * <p>
+ * Can be used from multiple threads at once, as long as no two threads work on the same recipe.
+ */
+final class ModificationApplier {
+
+    private final List<RecipeModifierHolder> modifiers;
+    private final HolderLookup.Provider registryAccess;
+    private final RecipeHelper helper;
+    private final MatchCache.@Nullable Session matchCache;
+    private final ModificationProfile.@Nullable Recorder profile;
+
+    private final BitSet alwaysTested;
+    /**
+     * Modifiers with {@linkplain RecipeFilter#isThreadSafe() thread-safe} filters, which can be planned.
+     */
+    private final BitSet plannable;
+    private final Map<RecipeHolder<?>, BitSet> candidates = new IdentityHashMap<>();
+    private @Nullable Map<RecipeHolder<?>, BitSet> planned;
+
+    ModificationApplier(List<RecipeModifierHolder> modifiers, RecipeIndex index,
+                        HolderLookup.Provider registryAccess, RecipeHelper helper) {
+        this(modifiers, index, registryAccess, helper, null, null);
+    }
+
+    /**
+     * @param matchCache if not null, used to skip testing filters whose result is known from a previous reload
+     * @param profile    if not null, records how long testing and applying each modifier takes
+     */
+    ModificationApplier(List<RecipeModifierHolder> modifiers, RecipeIndex index, HolderLookup.Provider registryAccess,
+                        RecipeHelper helper, MatchCache.@Nullable Session matchCache,
+                        ModificationProfile.@Nullable Recorder profile) {
+        this.modifiers = modifiers;
+        this.registryAccess = registryAccess;
+        this.helper = helper;
+        this.matchCache = matchCache;
+        this.profile = profile;
+
+        // look up which recipes each modifier could apply to, so filters don't have to be tested on every recipe
+        this.alwaysTested = new BitSet(modifiers.size());
+        this.plannable = new BitSet(modifiers.size());
+        for (int i = 0; i < modifiers.size(); i++) {
+            // appliers are created once per reload
+            RecipeFilters.resetStatistics(modifiers.get(i).filter());
+            if (modifiers.get(i).filter().isThreadSafe()) plannable.set(i);
+            var lookup = modifiers.get(i).filter().candidates(index);
+            if (lookup == null) {
+                alwaysTested.set(i);
+                continue;
+            }
+            for (RecipeHolder<?> recipeHolder : lookup)
+                candidates.computeIfAbsent(recipeHolder, r -> new BitSet()).set(i);
+        }
+    }
+
+    int modifierCount() {
+        return modifiers.size();
+    }
+
+    int alwaysTestedCount() {
+        return alwaysTested.cardinality();
+    }
+
+    HolderLookup.Provider registryAccess() {
+        return registryAccess;
+    }
+
+    /**
+     * Returns the indices of the modifiers that the index found for the given recipe.
+     */
+    @Nullable BitSet candidatesOf(RecipeHolder<?> recipe) {
+        return candidates.get(recipe);
+    }
+
+    /**
+     * Returns whether the modifier at the given index has to be tested against a recipe with the given candidates.
+     */
+    boolean isCandidate(int modifier, @Nullable BitSet recipeCandidates) {
+        return alwaysTested.get(modifier) || recipeCandidates != null && recipeCandidates.get(modifier);
+    }
+
+    int plannableCount() {
+        return plannable.cardinality();
+    }
+
+    /**
+     * Tests all modifiers with thread-safe filters that could match the given unmodified recipe, without applying
+     * any of them. Can be called from any thread.
+     *
+     * @return the indices of the matching modifiers
+     */
+    BitSet match(RecipeHolder<?> recipeHolder) {
+        var recipeCandidates = candidatesOf(recipeHolder);
+        var cached = matchCache == null ? null : matchCache.entryOf(recipeHolder);
+        var matches = new BitSet();
+        for (int i = plannable.nextSetBit(0); i >= 0; i = plannable.nextSetBit(i + 1))
+            if (isCandidate(i, recipeCandidates) && test(i, recipeHolder, cached, true)) matches.set(i);
+        return matches;
+    }
+
+    /**
+     * Uses the given results of {@link #match(RecipeHolder)} instead of testing the filters again, as long as
+     * the recipes weren't modified. Recipes without results, and filters that aren't thread-safe, are tested
+     * as usual.
+     */
+    void setPlan(Map<RecipeHolder<?>, BitSet> planned) {
+        this.planned = planned;
+    }
+
+    /**
+     * Applies all matching modifiers to the given recipe, in order.
+     *
+     * @param recipeCandidates the modifiers found for this recipe, see {@link #candidatesOf(RecipeHolder)}
+     * @return the number of modifiers that were applied
+     */
+    int apply(RecipeHolder<?> recipeHolder, @Nullable BitSet recipeCandidates) {
+        var planned = this.planned == null ? null : this.planned.get(recipeHolder);
+        var cached = matchCache == null || planned != null ? null : matchCache.entryOf(recipeHolder);
+        var appliedOnRecipe = 0;
+        try {
+            for (int i = 0; i < modifiers.size(); i++) {
+                // the index was built before any modifier ran - once a recipe was modified, test everything
+                if (appliedOnRecipe == 0 && !isCandidate(i, recipeCandidates)) continue;
+
+                var matches = appliedOnRecipe == 0 && planned != null && plannable.get(i)
+                    ? planned.get(i)
+                    : test(i, recipeHolder, cached, appliedOnRecipe == 0);
+                if (!matches) continue;
+
+                var modifier = modifiers.get(i);
+                if (appliedOnRecipe == 0) helper.setCurrentRecipe(recipeHolder.value());
+                var start = profile == null ? 0 : System.nanoTime();
+                var event = ModifierApplicationEvent.start();
+                var failed = false;
+                RecipeModification.applyingModifier.set(modifier.id());
+                try {
+                    modifier.apply(recipeHolder.value(), helper);
+                } catch (Exception e) {
+                    logger.error("Failed to apply modifier '{}' to recipe '{}'", modifier.id(), recipeHolder.id(), e);
+                    failed = true;
+                } finally {
+                    RecipeModification.applyingModifier.remove();
+                }
+                event.finish(modifier.id(), recipeHolder.id(), failed);
+                if (profile != null) profile.recordApply(i, System.nanoTime() - start, failed);
+                appliedOnRecipe++;
+            }
+        } finally {
+            if (appliedOnRecipe > 0) helper.setCurrentRecipe(null);
+        }
+
+        if (appliedOnRecipe > 0)
+            logger.debug("Applied {} recipe modifiers to {}", appliedOnRecipe, recipeHolder.id());
+        return appliedOnRecipe;
+    }
+
+    /**
+     * Tests the filter of the modifier at the given index, using the match cache if the recipe is unmodified.
+     */
+    private boolean test(int modifier, RecipeHolder<?> recipeHolder, MatchCache.@Nullable Entry cached,
+                         boolean unmodified) {
+        var start = profile == null ? 0 : System.nanoTime();
+        var matches = unmodified && matchCache != null
+            ? matchCache.shouldApply(cached, modifier, recipeHolder, registryAccess)
+            : modifiers.get(modifier).filter().shouldApply(recipeHolder, registryAccess);
+        if (profile != null) profile.recordFilter(modifier, System.nanoTime() - start, matches);
+        return matches;
+    }
+}
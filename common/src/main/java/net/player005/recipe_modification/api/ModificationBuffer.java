@@ -0,0 +1,47 @@
+package net.player005.recipe_modification.api;
+
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.item.crafting.Recipe;
+import net.player005.recipe_modification.impl.ResultPipeline;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects recipe removals (and result modifications of recipes without a field for them) while modifiers are
+ * applied off the main thread, so the shared collections in {@link RecipeModification} are never written to
+ * concurrently.
+ * <p>
+ * While a buffer is bound to a thread, {@link RecipeModification} writes to it instead of its own collections,
+ * and reads from both. Once all workers are done, the buffers are committed in a fixed order.
+ */
+final class ModificationBuffer {
+
+    private static final ThreadLocal<@Nullable ModificationBuffer> current = new ThreadLocal<>();
+
+    /**
+     * Result pipelines of recipes without a field for them, see {@link RecipeModification#getResultModifiers(Recipe)}.
+     */
+    final Map<Recipe<?>, ResultPipeline> resultPipelines = new IdentityHashMap<>();
+    final List<ResourceLocation> toRemove = new ArrayList<>();
+
+    /**
+     * Ids of recipe copies that aren't known to the recipe manager (see {@link ParallelApplication}).
+     */
+    final Map<Recipe<?>, ResourceLocation> ids = new IdentityHashMap<>();
+
+    static @Nullable ModificationBuffer current() {
+        return current.get();
+    }
+
+    void bind() {
+        current.set(this);
+    }
+
+    void unbind() {
+        current.remove();
+    }
+}
@@ -0,0 +1,138 @@
+package net.player005.recipe_modification.api;
+
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableMultimap;
+import net.minecraft.core.HolderLookup;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.crafting.Ingredient;
+import net.minecraft.world.item.crafting.Recipe;
+import net.minecraft.world.item.crafting.RecipeHolder;
+import net.minecraft.world.item.crafting.RecipeManager;
+import net.player005.recipe_modification.impl.ResultPipeline;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * All state derived from the recipes of a single datapack reload.
+ * <p>
+ * A new generation is started on every reload, and only replaces the current one once all modifiers were
+ * applied. Nothing else keeps a reference to it, so the previous generation (and with it the previous
+ * recipes) can be garbage collected afterwards.
+ */
+final class ModificationGeneration {
+
+    final RecipeManager recipeManager;
+    final HolderLookup.Provider registryAccess;
+    final ModificationProfile profile;
+
+    /**
+     * The filter results tested before the reload was applied, if any, see {@link ModificationPlan}.
+     * Dropped once the modifiers were applied.
+     */
+    @Nullable ModificationPlan plan;
+
+    /**
+     * All recipes at the time the base results were taken, in order.
+     */
+    List<RecipeHolder<?>> baseRecipes = List.of();
+
+    /**
+     * Built once all modifiers were applied, see {@link RecipeModification#getRecipesByIngredient(Item)}.
+     */
+    @Nullable RecipesByItem recipesByIngredient;
+
+    /**
+     * The result of every recipe before any modifier was applied, see {@link RecipeModification#getBaseResult}.
+     */
+    final Map<Recipe<?>, ItemStack> baseResults = new IdentityHashMap<>();
+
+    final Set<ResourceLocation> toRemove = new LinkedHashSet<>();
+
+    /**
+     * Whether the recipes in {@link #toRemove} were removed already, after which no more can be removed.
+     */
+    volatile boolean recipesRemoved;
+
+    /**
+     * The thread applying the modifications, which starts the deferred visits.
+     */
+    volatile @Nullable Thread applyingThread;
+
+    /**
+     * Visits requested while this generation was pending, started once all modifiers were applied.
+     */
+    final List<RecipeVisit<?>> deferredVisits = Collections.synchronizedList(new ArrayList<>());
+
+    /**
+     * Result pipelines of recipes that don't implement
+     * {@link net.player005.recipe_modification.impl.RecipeResultAccessor}.
+     */
+    final Map<Recipe<?>, ResultPipeline> resultPipelines = new IdentityHashMap<>();
+
+    /**
+     * Ingredients that were replaced by an equal, shared instance,
+     * see {@link RecipeModification#internIngredients()}.
+     */
+    final Map<Ingredient, Ingredient> internedIngredients = new IdentityHashMap<>();
+
+    /**
+     * Maps every recipe (by identity) to its holder. Built the first time it is needed, which may be
+     * on any thread during parallel application.
+     */
+    private final Supplier<Map<Recipe<?>, RecipeHolder<?>>> holdersByRecipe =
+        Suppliers.memoize(this::buildHoldersByRecipe);
+
+    /**
+     * The base recipes by their base result, built the first time they are needed. Most reloads never use them.
+     */
+    private final Supplier<RecipesByItem> recipesByResult = Suppliers.memoize(this::buildRecipesByResult);
+    private final Supplier<ImmutableMultimap<Item, RecipeHolder<?>>> recipesByResultMultimap =
+        Suppliers.memoize(() -> recipesByResult.get().toMultimap());
+
+    ModificationGeneration(RecipeManager recipeManager, HolderLookup.Provider registryAccess,
+                           ModificationProfile profile, @Nullable ModificationPlan plan) {
+        this.recipeManager = recipeManager;
+        this.registryAccess = registryAccess;
+        this.profile = profile;
+        this.plan = plan;
+    }
+
+    /**
+     * Returns the holder of the given recipe, or null if the recipe wasn't loaded by this generation's
+     * recipe manager.
+     */
+    @Nullable RecipeHolder<?> holderOf(Recipe<?> recipe) {
+        return holdersByRecipe.get().get(recipe);
+    }
+
+    RecipesByItem recipesByResult() {
+        return recipesByResult.get();
+    }
+
+    ImmutableMultimap<Item, RecipeHolder<?>> recipesByResultMultimap() {
+        return recipesByResultMultimap.get();
+    }
+
+    private RecipesByItem buildRecipesByResult() {
+        return RecipesByItem.ofItem(baseRecipes,
+            recipe -> BuiltInRegistries.ITEM.getId(baseResults.get(recipe.value()).getItem()));
+    }
+
+    private Map<Recipe<?>, RecipeHolder<?>> buildHoldersByRecipe() {
+        var recipes = recipeManager.getRecipes();
+        var map = new IdentityHashMap<Recipe<?>, RecipeHolder<?>>(recipes.size());
+        for (RecipeHolder<?> recipeHolder : recipes) map.put(recipeHolder.value(), recipeHolder);
+        return map;
+    }
+}
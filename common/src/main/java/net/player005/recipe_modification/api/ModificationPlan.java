@@ -0,0 +1,94 @@
+package net.player005.recipe_modification.api;
+
+import com.google.common.base.Stopwatch;
+import net.minecraft.world.item.crafting.RecipeHolder;
+import net.minecraft.world.item.crafting.RecipeManager;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import static net.player005.recipe_modification.api.RecipeModification.logger;
+
+/**
+ * The filter results of all modifiers on the recipes of a reload, tested on the reload's background executor
+ * while the recipes aren't in use yet, see {@link RecipeModification#planModifications}.
+ * <p>
+ * Filters see the recipes as they were loaded, so the plan only holds for recipes that no modifier was applied
+ * to yet. Once a recipe was modified, the remaining filters are tested on the server thread as usual.
+ * Filters that aren't {@linkplain RecipeFilter#isThreadSafe() thread-safe}, like most filters registered from
+ * code, are never planned.
+ */
+final class ModificationPlan {
+
+    /**
+     * Number of recipes tested in a single task.
+     */
+    private static final int RECIPES_PER_TASK = 256;
+
+    final RecipeManager recipeManager;
+    final List<RecipeModifierHolder> modifiers;
+    final ModificationApplier applier;
+    final MatchCache.@Nullable Session matchCache;
+    final ModificationProfile profile;
+
+    private ModificationPlan(RecipeManager recipeManager, List<RecipeModifierHolder> modifiers,
+                             ModificationApplier applier, MatchCache.@Nullable Session matchCache,
+                             ModificationProfile profile) {
+        this.recipeManager = recipeManager;
+        this.modifiers = modifiers;
+        this.applier = applier;
+        this.matchCache = matchCache;
+        this.profile = profile;
+    }
+
+    /**
+     * Tests all filters of the given applier against the recipes of the given recipe manager, split into tasks
+     * on the given executor.
+     */
+    static CompletableFuture<ModificationPlan> create(RecipeManager recipeManager,
+                                                      List<RecipeModifierHolder> modifiers,
+                                                      ModificationApplier applier,
+                                                      MatchCache.@Nullable Session matchCache,
+                                                      ModificationProfile profile, Executor executor) {
+        var timer = Stopwatch.createStarted();
+        var recipes = List.copyOf(recipeManager.getRecipes());
+        var tasks = new ArrayList<CompletableFuture<BitSet[]>>();
+        for (int from = 0; from < recipes.size(); from += RECIPES_PER_TASK) {
+            var chunk = recipes.subList(from, Math.min(recipes.size(), from + RECIPES_PER_TASK));
+            tasks.add(CompletableFuture.supplyAsync(() -> {
+                var matches = new BitSet[chunk.size()];
+                for (int i = 0; i < matches.length; i++) matches[i] = applier.match(chunk.get(i));
+                return matches;
+            }, executor));
+        }
+
+        return CompletableFuture.allOf(tasks.toArray(CompletableFuture[]::new)).thenApply(unused -> {
+            var planned = new IdentityHashMap<RecipeHolder<?>, BitSet>(recipes.size());
+            var recipe = 0;
+            for (var task : tasks)
+                for (var matches : task.join()) planned.put(recipes.get(recipe++), matches);
+            applier.setPlan(planned);
+
+            profile.recordPhase("plan_modifiers", timer.elapsed(TimeUnit.NANOSECONDS));
+            logger.debug("Planned {} of {} modifiers for {} recipes in {} tasks in {}",
+                applier.plannableCount(), modifiers.size(), recipes.size(), tasks.size(), timer);
+            return new ModificationPlan(recipeManager, modifiers, applier, matchCache, profile);
+        });
+    }
+
+    /**
+     * Returns whether this plan was made for the given recipe manager and modifiers.
+     */
+    boolean isFor(RecipeManager recipeManager, List<RecipeModifierHolder> modifiers) {
+        if (this.recipeManager != recipeManager || this.modifiers.size() != modifiers.size()) return false;
+        for (int i = 0; i < modifiers.size(); i++)
+            if (this.modifiers.get(i) != modifiers.get(i)) return false;
+        return true;
+    }
+}
@@ -0,0 +1,149 @@
+package net.player005.recipe_modification.api;
+
+import net.minecraft.resources.ResourceLocation;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * How long a single reload took: the duration of each phase of applying modifications, and, if profiling was enabled
+ * (see {@link RecipeModification#setProfiling(boolean)}), what each modifier cost.
+ *
+ * @see RecipeModification#getLastProfile()
+ */
+public final class ModificationProfile {
+
+    private final boolean profileModifiers;
+    private final List<Phase> phases = Collections.synchronizedList(new ArrayList<>());
+    private @Nullable Recorder recorder;
+
+    ModificationProfile(boolean profileModifiers) {
+        this.profileModifiers = profileModifiers;
+    }
+
+    /**
+     * The duration of a single phase of applying modifications, like taking the snapshot of base results
+     * or applying the modifiers.
+     */
+    public record Phase(String name, long nanos) {
+    }
+
+    /**
+     * The totals of a single modifier over all recipes.
+     *
+     * @param filterTests the number of times the filter was tested
+     * @param matches     the number of recipes the modifier was applied to
+     * @param exceptions  the number of times applying the modifier threw an exception
+     */
+    public record ModifierStats(ResourceLocation id, long filterTests, long filterNanos, long matches,
+                                long applyNanos, long exceptions) {
+
+        public long totalNanos() {
+            return filterNanos + applyNanos;
+        }
+    }
+
+    public List<Phase> getPhases() {
+        return List.copyOf(phases);
+    }
+
+    /**
+     * Returns whether the cost of each modifier was recorded.
+     */
+    public boolean hasModifierStats() {
+        return recorder != null;
+    }
+
+    /**
+     * Returns the stats of all modifiers, most expensive first, or an empty list if they weren't recorded.
+     */
+    public List<ModifierStats> getModifierStats() {
+        var recorder = this.recorder;
+        if (recorder == null) return List.of();
+        var stats = new ArrayList<ModifierStats>(recorder.modifiers.size());
+        for (int i = 0; i < recorder.modifiers.size(); i++) {
+            stats.add(new ModifierStats(recorder.modifiers.get(i).id(), recorder.filterTests[i].sum(),
+                recorder.filterNanos[i].sum(), recorder.matches[i].sum(), recorder.applyNanos[i].sum(),
+                recorder.exceptions[i].sum()));
+        }
+        stats.sort(Comparator.comparingLong(ModifierStats::totalNanos).reversed());
+        return stats;
+    }
+
+    /**
+     * Writes all phases and modifier stats to the given CSV file, with times in milliseconds.
+     */
+    public void writeCsv(Path file) throws IOException {
+        var lines = new ArrayList<String>();
+        lines.add("type,name,time_ms,filter_tests,filter_ms,matches,apply_ms,exceptions");
+        for (var phase : getPhases())
+            lines.add("phase," + phase.name() + "," + millis(phase.nanos()) + ",,,,,");
+        for (var stats : getModifierStats()) {
+            lines.add("modifier," + stats.id() + "," + millis(stats.totalNanos()) + "," + stats.filterTests() + ","
+                + millis(stats.filterNanos()) + "," + stats.matches() + "," + millis(stats.applyNanos()) + ","
+                + stats.exceptions());
+        }
+        Files.write(file, lines);
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / (double) TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    void recordPhase(String name, long nanos) {
+        phases.add(new Phase(name, nanos));
+    }
+
+    /**
+     * Starts recording the cost of the given modifiers, if enabled for this profile.
+     */
+    @Nullable Recorder recordModifiers(List<RecipeModifierHolder> modifiers) {
+        if (!profileModifiers) return null;
+        recorder = new Recorder(modifiers);
+        return recorder;
+    }
+
+    /**
+     * Collects the stats of each modifier by index. Can be used from multiple threads at once.
+     */
+    static final class Recorder {
+
+        private final List<RecipeModifierHolder> modifiers;
+        private final LongAdder[] filterTests, filterNanos, matches, applyNanos, exceptions;
+
+        private Recorder(List<RecipeModifierHolder> modifiers) {
+            this.modifiers = modifiers;
+            this.filterTests = adders(modifiers.size());
+            this.filterNanos = adders(modifiers.size());
+            this.matches = adders(modifiers.size());
+            this.applyNanos = adders(modifiers.size());
+            this.exceptions = adders(modifiers.size());
+        }
+
+        private static LongAdder[] adders(int count) {
+            var adders = new LongAdder[count];
+            for (int i = 0; i < count; i++) adders[i] = new LongAdder();
+            return adders;
+        }
+
+        void recordFilter(int modifier, long nanos, boolean matched) {
+            filterTests[modifier].increment();
+            filterNanos[modifier].add(nanos);
+            if (matched) matches[modifier].increment();
+        }
+
+        void recordApply(int modifier, long nanos, boolean failed) {
+            applyNanos[modifier].add(nanos);
+            if (failed) exceptions[modifier].increment();
+        }
+    }
+}
@@ -0,0 +1,302 @@
+package net.player005.recipe_modification.api;
+
+import com.google.common.base.Suppliers;
+import com.google.gson.JsonElement;
+import com.mojang.serialization.DynamicOps;
+import com.mojang.serialization.JsonOps;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import net.minecraft.core.HolderLookup;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.crafting.Ingredient;
+import net.minecraft.world.item.crafting.Recipe;
+import net.minecraft.world.item.crafting.RecipeHolder;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+
+import static net.player005.recipe_modification.api.RecipeModification.logger;
+
+/**
+ * Applies modifiers to all recipes on a fork-join pool.
+ * <p>
+ * Built-in modifiers copy ingredients before changing them, but still change them in place where they can't be
+ * swapped out (see {@link RecipeHelper#setCurrentRecipe}), and {@link Ingredient} instances may be shared between
+ * recipes, so recipes are first grouped by the ingredient instances they share. Each group is handled by a single
+ * thread, in the same order as a sequential run. Result modifications are stored on the recipes themselves, and
+ * removals are buffered per task (see {@link ModificationBuffer}) and committed in order afterwards,
+ * so the final state doesn't depend on how tasks were scheduled.
+ */
+final class ParallelApplication {
+
+    /**
+     * Number of recipe groups handled by a single task.
+     */
+    private static final int GROUPS_PER_TASK = 64;
+
+    private static final Supplier<ForkJoinPool> pool = Suppliers.memoize(() -> new ForkJoinPool(
+        Runtime.getRuntime().availableProcessors(), ParallelApplication::newWorker, null, false));
+
+    private ParallelApplication() {
+    }
+
+    static ForkJoinPool pool() {
+        return pool.get();
+    }
+
+    private static ForkJoinWorkerThread newWorker(ForkJoinPool pool) {
+        var thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        thread.setName("Recipe Modification Worker-" + thread.getPoolIndex());
+        // mod loaders use their own class loader, which the default worker threads don't know about
+        thread.setContextClassLoader(ParallelApplication.class.getClassLoader());
+        return thread;
+    }
+
+    /**
+     * Applies the given modifiers to all given recipes in parallel.
+     *
+     * @param verify whether to also apply all modifiers sequentially to copies of the recipes
+     *               and compare the results, see {@link RecipeModification#setParallelApplication(boolean, boolean)}
+     * @return the number of applied modifiers
+     */
+    static int apply(List<RecipeHolder<?>> recipes, ModificationApplier applier, boolean verify) {
+        var verification = verify ? new Verification(recipes, applier.registryAccess()) : null;
+
+        var groups = groupBySharedIngredients(recipes);
+        var buffers = new ModificationBuffer[groups.length];
+        int modified = pool().invoke(new ApplyTask(recipes, groups, applier, buffers, 0, groups.length));
+
+        for (var buffer : buffers)
+            if (buffer != null) RecipeModification.commitBuffer(buffer);
+        logger.debug("Applied modifiers to {} recipe groups on {} threads",
+            groups.length, pool().getParallelism());
+
+        if (verification != null) verification.verify(recipes, applier);
+        return modified;
+    }
+
+    /**
+     * Groups recipes (by their index in the given list) so that recipes sharing an {@link Ingredient} instance are
+     * in the same group. Groups are ordered by their first recipe.
+     */
+    static int[][] groupBySharedIngredients(List<RecipeHolder<?>> recipes) {
+        var parent = new int[recipes.size()];
+        for (int i = 0; i < parent.length; i++) parent[i] = i;
+
+        var owners = new IdentityHashMap<Ingredient, Integer>();
+        for (int i = 0; i < parent.length; i++) {
+            for (var ingredient : recipes.get(i).value().getIngredients()) {
+                // fills the empty slots of nearly every shaped recipe, and would put all of them in one group
+                if (ingredient == Ingredient.EMPTY) continue;
+                var owner = owners.putIfAbsent(ingredient, i);
+                if (owner != null) union(parent, owner, i);
+            }
+        }
+
+        var groupIndices = new int[parent.length];
+        Arrays.fill(groupIndices, -1);
+        var groups = new ArrayList<IntArrayList>();
+        for (int i = 0; i < parent.length; i++) {
+            var root = find(parent, i);
+            if (groupIndices[root] == -1) {
+                groupIndices[root] = groups.size();
+                groups.add(new IntArrayList());
+            }
+            groups.get(groupIndices[root]).add(i);
+        }
+        return groups.stream().map(IntArrayList::toIntArray).toArray(int[][]::new);
+    }
+
+    private static int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    private static void union(int[] parent, int a, int b) {
+        a = find(parent, a);
+        b = find(parent, b);
+        // keep the smaller index as root, so groups don't depend on the order of unions
+        if (a < b) parent[b] = a;
+        else if (b < a) parent[a] = b;
+    }
+
+    private static final class ApplyTask extends RecursiveTask<Integer> {
+
+        private final List<RecipeHolder<?>> recipes;
+        private final int[][] groups;
+        private final ModificationApplier applier;
+        private final ModificationBuffer[] buffers;
+        private final int from;
+        private final int to;
+
+        ApplyTask(List<RecipeHolder<?>> recipes, int[][] groups, ModificationApplier applier,
+                  ModificationBuffer[] buffers, int from, int to) {
+            this.recipes = recipes;
+            this.groups = groups;
+            this.applier = applier;
+            this.buffers = buffers;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Integer compute() {
+            if (to - from > GROUPS_PER_TASK) {
+                var middle = (from + to) >>> 1;
+                var left = new ApplyTask(recipes, groups, applier, buffers, from, middle);
+                left.fork();
+                int right = new ApplyTask(recipes, groups, applier, buffers, middle, to).compute();
+                return left.join() + right;
+            }
+
+            var buffer = new ModificationBuffer();
+            buffer.bind();
+            try {
+                var modified = 0;
+                for (int group = from; group < to; group++) {
+                    for (int recipe : groups[group]) {
+                        var recipeHolder = recipes.get(recipe);
+                        modified += applier.apply(recipeHolder, applier.candidatesOf(recipeHolder));
+                    }
+                }
+                buffers[from] = buffer;
+                return modified;
+            } finally {
+                buffer.unbind();
+            }
+        }
+    }
+
+    /**
+     * Detached copies of all recipes, made before any modifier is applied. After the parallel run, modifiers
+     * are applied sequentially to the copies, and the final ingredients and results are compared.
+     */
+    private static final class Verification {
+
+        private final HolderLookup.Provider registryAccess;
+        private final DynamicOps<JsonElement> ops;
+        private final @Nullable RecipeHolder<?>[] copies;
+        private final ModificationBuffer buffer = new ModificationBuffer();
+
+        Verification(List<RecipeHolder<?>> recipes, HolderLookup.Provider registryAccess) {
+            this.registryAccess = registryAccess;
+            this.ops = registryAccess.createSerializationContext(JsonOps.INSTANCE);
+            this.copies = new RecipeHolder<?>[recipes.size()];
+
+            var ingredientCopies = new IdentityHashMap<Ingredient, Ingredient>();
+            for (int i = 0; i < copies.length; i++) {
+                var original = recipes.get(i);
+                var copy = copy(original.value());
+                if (copy == null || !shareIngredientsLike(original.value(), copy, ingredientCopies)) continue;
+
+                copies[i] = new RecipeHolder<>(original.id(), copy);
+                buffer.ids.put(copy, original.id());
+                RecipeModification.copyResultModifications(original.value(), copy, buffer);
+            }
+            buffer.toRemove.addAll(RecipeModification.getRecipesToRemove());
+        }
+
+        private @Nullable Recipe<?> copy(Recipe<?> recipe) {
+            return Recipe.CODEC.encodeStart(ops, recipe).result()
+                .flatMap(json -> Recipe.CODEC.parse(ops, json).result())
+                .orElse(null);
+        }
+
+        /**
+         * Makes the copy use the same ingredient instances as other copies wherever the original does.
+         *
+         * @return false if that's not possible for the given recipe
+         */
+        private static boolean shareIngredientsLike(Recipe<?> original, Recipe<?> copy,
+                                                    Map<Ingredient, Ingredient> ingredientCopies) {
+            var originalIngredients = original.getIngredients();
+            var copiedIngredients = copy.getIngredients();
+            if (originalIngredients.size() != copiedIngredients.size()) return false;
+
+            for (int i = 0; i < originalIngredients.size(); i++) {
+                var ingredient = originalIngredients.get(i);
+                if (ingredient == Ingredient.EMPTY) continue;
+
+                var shared = ingredientCopies.putIfAbsent(ingredient, copiedIngredients.get(i));
+                if (shared == null || shared == copiedIngredients.get(i)) continue;
+                try {
+                    copiedIngredients.set(i, shared);
+                } catch (UnsupportedOperationException e) {
+                    return false;
+                }
+                // some recipes return a new list every time
+                if (copy.getIngredients().get(i) != shared) return false;
+            }
+            return true;
+        }
+
+        void verify(List<RecipeHolder<?>> recipes, ModificationApplier applier) {
+            int identical = 0, different = 0, skipped = 0;
+
+            buffer.bind();
+            try {
+                for (int i = 0; i < copies.length; i++) {
+                    var copy = copies[i];
+                    if (copy != null) applier.apply(copy, applier.candidatesOf(recipes.get(i)));
+                }
+
+                for (int i = 0; i < copies.length; i++) {
+                    var copy = copies[i];
+                    if (copy == null) {
+                        skipped++;
+                        continue;
+                    }
+                    var parallel = describe(recipes.get(i).value());
+                    var sequential = describe(copy.value());
+                    if (parallel.equals(sequential)) {
+                        identical++;
+                        continue;
+                    }
+                    if (different++ < 10)
+                        logger.error("Parallel recipe modification differs from sequential one for '{}':\n" +
+                            "parallel:   {}\nsequential: {}", copy.id(), parallel, sequential);
+                }
+            } finally {
+                buffer.unbind();
+            }
+
+            var parallelRemovals = new HashSet<>(RecipeModification.getRecipesToRemove());
+            var sequentialRemovals = new HashSet<>(buffer.toRemove);
+            if (!parallelRemovals.equals(sequentialRemovals)) {
+                different++;
+                logger.error("Parallel recipe modification removed different recipes than sequential one:\n" +
+                    "parallel:   {}\nsequential: {}", parallelRemovals, sequentialRemovals);
+            }
+
+            if (different > 0)
+                logger.error("Verified parallel recipe modification: {} recipes identical, {} differ, " +
+                    "{} could not be copied", identical, different, skipped);
+            else logger.info("Verified parallel recipe modification: {} recipes identical, " +
+                "{} could not be copied", identical, skipped);
+        }
+
+        /**
+         * Returns the serialized type, ingredients and result of the given recipe.
+         */
+        private String describe(Recipe<?> recipe) {
+            var description = new StringBuilder()
+                .append(BuiltInRegistries.RECIPE_SERIALIZER.getKey(recipe.getSerializer()));
+            for (var ingredient : recipe.getIngredients())
+                description.append(' ').append(encode(Ingredient.CODEC.encodeStart(ops, ingredient).result()));
+            var result = recipe.getResultItem(registryAccess);
+            return description.append(" -> ")
+                .append(encode(ItemStack.OPTIONAL_CODEC.encodeStart(ops, result).result())).toString();
+        }
+
+        private static String encode(Optional<JsonElement> json) {
+            return json.map(JsonElement::toString).orElse("<unencodable>");
+        }
+    }
+}
@@ -5,6 +5,8 @@ import net.minecraft.resources.ResourceLocation;
 import net.minecraft.world.item.crafting.RecipeHolder;
 import net.minecraft.world.item.crafting.RecipeManager;
 
+import java.util.Set;
+
 public interface Platform {
 
     HolderLookup.Provider getRegistryAccess(RecipeManager recipeManager);
@@ -12,4 +14,14 @@ public interface Platform {
     RecipeHolder<?> getRecipeByID(RecipeManager recipeManager, ResourceLocation id);
 
     RecipeHelper getHelper();
+
+    /**
+     * Returns the version of this mod, as given to the mod loader.
+     */
+    String getModVersion();
+
+    /**
+     * Removes all recipes with the given ids from the recipe manager.
+     */
+    void removeRecipes(RecipeManager recipeManager, Set<ResourceLocation> ids);
 }
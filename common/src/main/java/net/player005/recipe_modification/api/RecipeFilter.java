@@ -6,9 +6,14 @@ import net.minecraft.resources.ResourceLocation;
 import net.minecraft.tags.TagKey;
 import net.minecraft.world.item.Item;
 import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.crafting.Recipe;
 import net.minecraft.world.item.crafting.RecipeHolder;
 import net.minecraft.world.item.crafting.RecipeType;
-import org.apache.commons.lang3.ArrayUtils;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.function.Function;
 
 /**
  * A simple functional interface to filter recipes.
@@ -30,92 +35,187 @@ public interface RecipeFilter {
      */
     boolean shouldApply(RecipeHolder<?> recipe, HolderLookup.Provider registryAccess);
 
+    /**
+     * Returns all recipes that could possibly match this filter, looked up in the given {@link RecipeIndex},
+     * or {@code null} if this filter has to be tested against every recipe (the default).
+     * <p>
+     * Modifiers are only tested against the returned recipes, so this must never leave out a recipe that
+     * {@link #shouldApply} would accept. It may however return recipes that don't match.
+     */
+    default @Nullable Collection<RecipeHolder<?>> candidates(RecipeIndex index) {
+        return null;
+    }
+
+    /**
+     * Returns a rough estimate of how expensive {@link #shouldApply} is, where comparing the recipe id costs 1,
+     * checking the result item 10 and testing every ingredient 60. Unknown filters are assumed to cost 100.
+     * <p>
+     * Used by {@link #compile(RecipeFilter)} to test cheap filters first.
+     */
+    default int cost() {
+        return RecipeFilters.UNKNOWN_COST;
+    }
+
+    /**
+     * Returns whether {@link #shouldApply} can be called from any thread at any time, e.g. on the reload's
+     * background executor while the server keeps running. Filters that aren't thread-safe are only tested on the
+     * thread applying the modifiers (see {@link RecipeModification#setAsyncPlanning(boolean)}).
+     * <p>
+     * All built-in filters are thread-safe, as long as the filters they combine are.
+     */
+    default boolean isThreadSafe() {
+        return false;
+    }
+
     /**
      * A simple recipe filter that always returns {@code true}.
      */
-    RecipeFilter ALWAYS_APPLY = (recipe, registryAccess) -> true;
+    RecipeFilter ALWAYS_APPLY = RecipeFilters.Constant.ALWAYS;
 
     /**
      * Returns a recipe filter that filters for recipes that use the given ItemStack as an ingredient
      */
     static RecipeFilter acceptsIngredient(ItemStack item) {
-        return (recipe, registryAccess) -> {
+        // only matches recipes with empty ingredients, which can't be looked up by item
+        if (item.isEmpty()) return RecipeFilters.builtIn((recipe, registryAccess) -> {
             for (var ingredient : recipe.value().getIngredients())
                 if (ingredient.test(item)) return true;
             return false;
-        };
+        }, index -> null, RecipeFilters.UNKNOWN_COST);
+        return RecipeFilters.builtIn((recipe, registryAccess) -> {
+            var helper = RecipeModification.getPlatform().getHelper();
+            for (var ingredient : recipe.value().getIngredients())
+                if (helper.acceptsStack(ingredient, item)) return true;
+            return false;
+        }, index -> index.byIngredient(item.getItem()), RecipeFilters.INGREDIENT_COST);
     }
 
     /**
      * Returns a recipe filter that filters for recipes that create the given result item.
+     * Like all result filters, this tests the result the recipe was loaded with
+     * (see {@link RecipeModification#getBaseResult}).
      */
     static RecipeFilter resultItemIs(Item item) {
-        return (recipe, registryAccess) -> recipe.value().getResultItem(registryAccess).is(item);
+        return RecipeFilters.builtIn((recipe, registryAccess) ->
+                RecipeModification.getBaseResult(recipe, registryAccess).is(item),
+            index -> index.byResult(item), RecipeFilters.RESULT_COST);
     }
 
     /**
      * Returns a recipe filter that filters for recipes that create any of the given items.
      */
     static RecipeFilter resultItemIs(Item[] items) {
-        return (recipe, registryAccess) -> ArrayUtils.contains(items, recipe.value().getResultItem(registryAccess));
+        return RecipeFilters.builtIn((recipe, registryAccess) -> {
+            var result = RecipeModification.getBaseResult(recipe, registryAccess);
+            for (var item : items) if (result.is(item)) return true;
+            return false;
+        }, index -> {
+            var candidates = new ArrayList<RecipeHolder<?>>();
+            for (var item : items) candidates.addAll(index.byResult(item));
+            return candidates;
+        }, RecipeFilters.RESULT_COST);
     }
 
     /**
      * Returns a recipe filter that filters for recipes that create a result item contained in the given tag.
      */
     static RecipeFilter resultItemIs(TagKey<Item> itemTag) {
-        return (recipe, registryAccess) -> recipe.value().getResultItem(registryAccess).is(itemTag);
+        return RecipeFilters.builtIn((recipe, registryAccess) ->
+                RecipeModification.getBaseResult(recipe, registryAccess).is(itemTag),
+            index -> index.byResult(itemTag), RecipeFilters.RESULT_COST);
     }
 
+    /**
+     * Returns a recipe filter that filters for recipes whose result item matches the given predicate.
+     */
     static RecipeFilter resultItemMatches(ItemPredicate predicate) {
-        return (recipe, registryAccess) -> predicate.test(recipe.value().getResultItem(registryAccess));
+        return RecipeFilters.builtIn((recipe, registryAccess) ->
+                predicate.test(RecipeModification.getBaseResult(recipe, registryAccess)),
+            index -> null, RecipeFilters.PREDICATE_COST);
     }
 
     /**
      * Returns a recipe filter that filters for the recipe with the given id.
      */
     static RecipeFilter idEquals(ResourceLocation id) {
-        return (recipe, registryAccess) -> recipe.id().equals(id);
+        return RecipeFilters.builtIn((recipe, registryAccess) -> recipe.id().equals(id), index -> index.byId(id),
+            RecipeFilters.ID_COST);
     }
 
     /**
      * Returns a recipe filter that filters for recipes in the given namespace.
      */
     static RecipeFilter namespaceEquals(String group) {
-        return (recipe, registryAccess) -> recipe.id().getNamespace().equals(group);
+        return RecipeFilters.builtIn((recipe, registryAccess) -> recipe.id().getNamespace().equals(group),
+            index -> index.byNamespace(group), RecipeFilters.ID_COST);
     }
 
     /**
      * Returns a recipe filter that filters for recipes of the given type.
      */
     static RecipeFilter isType(RecipeType<?> recipeType) {
-        return (recipe, registryAccess) -> recipe.value().getType().equals(recipeType);
+        return RecipeFilters.builtIn((recipe, registryAccess) -> recipe.value().getType().equals(recipeType),
+            index -> index.byType(recipeType), RecipeFilters.TYPE_COST);
+    }
+
+    /**
+     * Returns a recipe filter that filters for recipes of the given class, which all have the given type,
+     * like shaped crafting recipes.
+     */
+    static RecipeFilter isType(RecipeType<?> recipeType, Class<? extends Recipe<?>> recipeClass) {
+        return RecipeFilters.builtIn((recipe, registryAccess) -> recipeClass.isInstance(recipe.value()),
+            index -> index.byType(recipeType), RecipeFilters.TYPE_COST);
     }
 
     /**
      * Concatenates multiple given filters with a logical and.
      */
     static RecipeFilter and(RecipeFilter... filters) {
-        return (recipe, registryAccess) -> {
-            for (var filter : filters) if (!filter.shouldApply(recipe, registryAccess)) return false;
-            return true;
-        };
+        return new RecipeFilters.And(filters);
     }
 
     /**
      * Concatenates multiple given filters with a logical or.
      */
     static RecipeFilter or(RecipeFilter... filters) {
-        return (recipe, registryAccess) -> {
-            for (var filter : filters) if (filter.shouldApply(recipe, registryAccess)) return true;
-            return false;
-        };
+        return new RecipeFilters.Or(filters);
     }
 
     /**
      * Returns a recipe filter that filters for recipes that don't match the given filter (inverts the given filter).
      */
     static RecipeFilter not(RecipeFilter filter) {
-        return (recipe, registryAccess) -> !filter.shouldApply(recipe, registryAccess);
+        return new RecipeFilters.Not(filter);
+    }
+
+    /**
+     * Returns a recipe filter that only gets tested against the recipes returned by the given lookup,
+     * instead of against every loaded recipe. The lookup may return {@code null} to test all recipes.
+     *
+     * @see #candidates(RecipeIndex)
+     */
+    static RecipeFilter indexed(RecipeFilter filter,
+                                Function<RecipeIndex, @Nullable Collection<RecipeHolder<?>>> lookup) {
+        return indexed(filter, lookup, filter.cost());
+    }
+
+    /**
+     * Like {@link #indexed(RecipeFilter, Function)}, with the given estimated {@link #cost()}.
+     */
+    static RecipeFilter indexed(RecipeFilter filter,
+                                Function<RecipeIndex, @Nullable Collection<RecipeHolder<?>>> lookup, int cost) {
+        return new RecipeFilters.Indexed(filter, lookup, cost, filter.isThreadSafe());
+    }
+
+    /**
+     * Returns a filter that matches the same recipes as the given one, but is faster to evaluate: nested
+     * {@link #and}s and {@link #or}s are flattened, double {@link #not}s removed and {@link #ALWAYS_APPLY}
+     * folded into its parent. The children of and/or are tested in order of their {@link #cost()}, and later
+     * re-sorted by how often each of them decides the result.
+     * <p>
+     * This assumes that filters don't have side effects, as they may be tested in a different order.
+     */
+    static RecipeFilter compile(RecipeFilter filter) {
+        return RecipeFilters.compile(filter);
     }
 }
@@ -0,0 +1,346 @@
+package net.player005.recipe_modification.api;
+
+import net.minecraft.core.HolderLookup;
+import net.minecraft.world.item.crafting.RecipeHolder;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Implementations of the built-in {@link RecipeFilter}s that aren't simple lambdas, because they can narrow
+ * down their candidates using a {@link RecipeIndex}, or because {@link #compile(RecipeFilter)} needs to
+ * look into them.
+ */
+final class RecipeFilters {
+
+    // rough costs of the built-in filters, see RecipeFilter#cost()
+    static final int ID_COST = 1;
+    static final int TYPE_COST = 2;
+    static final int RESULT_COST = 10;
+    static final int PREDICATE_COST = 40;
+    static final int INGREDIENT_COST = 60;
+    static final int UNKNOWN_COST = 100;
+
+    /**
+     * Number of evaluations after which a compiled and/or re-sorts its children by measured selectivity.
+     */
+    private static final int REORDER_INTERVAL = 1024;
+
+    private RecipeFilters() {
+    }
+
+    /**
+     * See {@link RecipeFilter#compile(RecipeFilter)}.
+     */
+    static RecipeFilter compile(RecipeFilter filter) {
+        return switch (filter) {
+            case And and -> compileJunction(and.filters(), true);
+            case Or or -> compileJunction(or.filters(), false);
+            case Not not -> negate(compile(not.filter()));
+            default -> filter;
+        };
+    }
+
+    private static RecipeFilter negate(RecipeFilter filter) {
+        if (filter == Constant.ALWAYS) return Constant.NEVER;
+        if (filter == Constant.NEVER) return Constant.ALWAYS;
+        if (filter instanceof Not not) return not.filter();
+        return new Not(filter);
+    }
+
+    private static RecipeFilter compileJunction(RecipeFilter[] filters, boolean isAnd) {
+        // ALWAYS doesn't change the result of an and, NEVER decides it - and the other way round for or
+        var neutral = isAnd ? Constant.ALWAYS : Constant.NEVER;
+        var deciding = isAnd ? Constant.NEVER : Constant.ALWAYS;
+
+        var children = new ArrayList<RecipeFilter>(filters.length);
+        for (var filter : filters) {
+            var compiled = compile(filter);
+            if (compiled == neutral) continue;
+            if (compiled == deciding) return deciding;
+            // (a and (b and c)) is the same as (a and b and c)
+            if (compiled instanceof Junction junction && junction.isAnd == isAnd)
+                children.addAll(List.of(junction.children));
+            else children.add(compiled);
+        }
+
+        if (children.isEmpty()) return neutral;
+        if (children.size() == 1) return children.getFirst();
+        children.sort(Comparator.comparingInt(RecipeFilter::cost));
+        return new Junction(children.toArray(RecipeFilter[]::new), isAnd);
+    }
+
+    /**
+     * All filters have to match, so the smallest candidate set of any filter is enough.
+     */
+    private static @Nullable Collection<RecipeHolder<?>> smallestCandidates(RecipeFilter[] filters, RecipeIndex index) {
+        Collection<RecipeHolder<?>> smallest = null;
+        for (var filter : filters) {
+            var candidates = filter.candidates(index);
+            if (candidates != null && (smallest == null || candidates.size() < smallest.size()))
+                smallest = candidates;
+        }
+        return smallest;
+    }
+
+    /**
+     * Any filter may match, so this can only be narrowed down if every filter can be.
+     */
+    private static @Nullable Collection<RecipeHolder<?>> allCandidates(RecipeFilter[] filters, RecipeIndex index) {
+        var union = new ArrayList<RecipeHolder<?>>();
+        for (var filter : filters) {
+            var candidates = filter.candidates(index);
+            if (candidates == null) return null;
+            union.addAll(candidates);
+        }
+        return union;
+    }
+
+    /**
+     * Wraps the lambda of a built-in filter, which are all thread-safe.
+     */
+    static RecipeFilter builtIn(RecipeFilter filter,
+                                Function<RecipeIndex, @Nullable Collection<RecipeHolder<?>>> lookup, int cost) {
+        return new Indexed(filter, lookup, cost, true);
+    }
+
+    /**
+     * Resets the selectivity statistics of all compiled and/ors in the given filter, so that they only reflect
+     * the recipes of the current reload.
+     */
+    static void resetStatistics(RecipeFilter filter) {
+        switch (filter) {
+            case Junction junction -> {
+                junction.resetStatistics();
+                for (var child : junction.children) resetStatistics(child);
+            }
+            case Not not -> resetStatistics(not.filter());
+            case Indexed indexed -> resetStatistics(indexed.filter());
+            case And and -> {
+                for (var child : and.filters()) resetStatistics(child);
+            }
+            case Or or -> {
+                for (var child : or.filters()) resetStatistics(child);
+            }
+            default -> {
+            }
+        }
+    }
+
+    private static boolean allThreadSafe(RecipeFilter[] filters) {
+        for (var filter : filters) if (!filter.isThreadSafe()) return false;
+        return true;
+    }
+
+    private static int totalCost(RecipeFilter[] filters) {
+        var cost = 0;
+        for (var filter : filters) cost += filter.cost();
+        return cost;
+    }
+
+    enum Constant implements RecipeFilter {
+        ALWAYS, NEVER;
+
+        @Override
+        public boolean shouldApply(RecipeHolder<?> recipe, HolderLookup.Provider registryAccess) {
+            return this == ALWAYS;
+        }
+
+        @Override
+        public @Nullable Collection<RecipeHolder<?>> candidates(RecipeIndex index) {
+            return this == ALWAYS ? null : List.of();
+        }
+
+        @Override
+        public int cost() {
+            return 0;
+        }
+
+        @Override
+        public boolean isThreadSafe() {
+            return true;
+        }
+    }
+
+    record Indexed(RecipeFilter filter, Function<RecipeIndex, @Nullable Collection<RecipeHolder<?>>> lookup,
+                   int cost, boolean isThreadSafe) implements RecipeFilter {
+
+        @Override
+        public boolean shouldApply(RecipeHolder<?> recipe, HolderLookup.Provider registryAccess) {
+            return filter.shouldApply(recipe, registryAccess);
+        }
+
+        @Override
+        public @Nullable Collection<RecipeHolder<?>> candidates(RecipeIndex index) {
+            return lookup.apply(index);
+        }
+    }
+
+    record And(RecipeFilter[] filters) implements RecipeFilter {
+
+        @Override
+        public boolean shouldApply(RecipeHolder<?> recipe, HolderLookup.Provider registryAccess) {
+            for (var filter : filters) if (!filter.shouldApply(recipe, registryAccess)) return false;
+            return true;
+        }
+
+        @Override
+        public @Nullable Collection<RecipeHolder<?>> candidates(RecipeIndex index) {
+            return smallestCandidates(filters, index);
+        }
+
+        @Override
+        public int cost() {
+            return totalCost(filters);
+        }
+
+        @Override
+        public boolean isThreadSafe() {
+            return allThreadSafe(filters);
+        }
+    }
+
+    record Or(RecipeFilter[] filters) implements RecipeFilter {
+
+        @Override
+        public boolean shouldApply(RecipeHolder<?> recipe, HolderLookup.Provider registryAccess) {
+            for (var filter : filters) if (filter.shouldApply(recipe, registryAccess)) return true;
+            return false;
+        }
+
+        @Override
+        public @Nullable Collection<RecipeHolder<?>> candidates(RecipeIndex index) {
+            return allCandidates(filters, index);
+        }
+
+        @Override
+        public int cost() {
+            return totalCost(filters);
+        }
+
+        @Override
+        public boolean isThreadSafe() {
+            return allThreadSafe(filters);
+        }
+    }
+
+    record Not(RecipeFilter filter) implements RecipeFilter {
+
+        @Override
+        public boolean shouldApply(RecipeHolder<?> recipe, HolderLookup.Provider registryAccess) {
+            return !filter.shouldApply(recipe, registryAccess);
+        }
+
+        @Override
+        public int cost() {
+            return filter.cost();
+        }
+
+        @Override
+        public boolean isThreadSafe() {
+            return filter.isThreadSafe();
+        }
+    }
+
+    /**
+     * A compiled and/or. Children are first ordered by their estimated cost, and then periodically re-sorted
+     * by how often each of them decided the result, so that cheap filters that reject (or for or, accept) most
+     * recipes run first.
+     * <p>
+     * The counters can be updated from multiple threads at once, and only one thread re-sorts the children at a
+     * time. They are reset on every reload (see {@link #resetStatistics(RecipeFilter)}), keeping the order.
+     */
+    static final class Junction implements RecipeFilter {
+
+        private final RecipeFilter[] children;
+        private final boolean isAnd;
+        private final int cost;
+
+        private final LongAdder[] evaluated;
+        private final LongAdder[] decided;
+        private final AtomicLong evaluations = new AtomicLong();
+        private final AtomicBoolean reordering = new AtomicBoolean();
+        private volatile int[] order;
+
+        Junction(RecipeFilter[] children, boolean isAnd) {
+            this.children = children;
+            this.isAnd = isAnd;
+            this.cost = totalCost(children);
+            this.evaluated = adders(children.length);
+            this.decided = adders(children.length);
+            this.order = new int[children.length];
+            Arrays.setAll(order, i -> i);
+        }
+
+        private static LongAdder[] adders(int count) {
+            var adders = new LongAdder[count];
+            Arrays.setAll(adders, i -> new LongAdder());
+            return adders;
+        }
+
+        @Override
+        public boolean shouldApply(RecipeHolder<?> recipe, HolderLookup.Provider registryAccess) {
+            if (evaluations.incrementAndGet() % REORDER_INTERVAL == 0) reorder();
+
+            for (int i : order) {
+                evaluated[i].increment();
+                // an and is decided by the first filter that doesn't match, an or by the first one that does
+                if (children[i].shouldApply(recipe, registryAccess) != isAnd) {
+                    decided[i].increment();
+                    return !isAnd;
+                }
+            }
+            return isAnd;
+        }
+
+        /**
+         * Sorts the children by the average cost of finding the result using them, i.e. their cost divided by
+         * the chance that they decide the result. Skipped if another thread is sorting them already.
+         */
+        private void reorder() {
+            if (!reordering.compareAndSet(false, true)) return;
+            try {
+                var rank = new double[children.length];
+                for (int i = 0; i < children.length; i++) {
+                    // add one to both, so filters that were never evaluated aren't ranked infinitely low or high
+                    var chance = (decided[i].sum() + 1d) / (evaluated[i].sum() + 2d);
+                    rank[i] = Math.max(children[i].cost(), 1) / chance;
+                }
+                order = Arrays.stream(order).boxed()
+                    .sorted(Comparator.comparingDouble(i -> rank[i]))
+                    .mapToInt(Integer::intValue).toArray();
+            } finally {
+                reordering.set(false);
+            }
+        }
+
+        private void resetStatistics() {
+            evaluations.set(0);
+            for (var adder : evaluated) adder.reset();
+            for (var adder : decided) adder.reset();
+        }
+
+        @Override
+        public @Nullable Collection<RecipeHolder<?>> candidates(RecipeIndex index) {
+            return isAnd ? smallestCandidates(children, index) : allCandidates(children, index);
+        }
+
+        @Override
+        public int cost() {
+            return cost;
+        }
+
+        @Override
+        public boolean isThreadSafe() {
+            return allThreadSafe(children);
+        }
+    }
+}
@@ -1,8 +1,19 @@
 package net.player005.recipe_modification.api;
 
+import net.minecraft.core.registries.BuiltInRegistries;
 import net.minecraft.tags.TagKey;
 import net.minecraft.world.item.Item;
+import net.minecraft.world.item.ItemStack;
 import net.minecraft.world.item.crafting.Ingredient;
+import net.minecraft.world.item.crafting.Recipe;
+import net.minecraft.world.item.crafting.RecipeHolder;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
 public interface RecipeHelper {
 
@@ -18,7 +29,84 @@ public interface RecipeHelper {
 
     void replaceIngredient(Ingredient ingredient, Ingredient newIngredient);
 
+    /**
+     * Returns a new ingredient with the same values as the given one, so that it can be added to
+     * a recipe without being shared with other recipes.
+     */
+    Ingredient copyIngredient(Ingredient ingredient);
+
+    /**
+     * Returns the raw ids of all items the given ingredient accepts, either directly or through a tag.
+     * Computed once per ingredient (until it is modified), the returned set must not be modified.
+     * For {@linkplain #isCustom custom} ingredients, these are the items of their stacks, computed on every call.
+     */
+    BitSet getAcceptedItems(Ingredient ingredient);
+
+    /**
+     * Returns whether the given ingredient accepts the given item, either directly or through a tag.
+     * Unlike {@link Ingredient#test}, this doesn't create any item stacks, except for
+     * {@linkplain #isCustom custom} ingredients, which are tested with the item's default stack.
+     */
+    default boolean acceptsItem(Ingredient ingredient, Item item) {
+        if (isCustom(ingredient)) return ingredient.test(item.getDefaultInstance());
+        return getAcceptedItems(ingredient).get(BuiltInRegistries.ITEM.getId(item));
+    }
+
+    /**
+     * Returns whether the given ingredient accepts the given stack, like {@link Ingredient#test}.
+     * Only {@linkplain #isCustom custom} ingredients and empty stacks are actually tested, all other
+     * ingredients only look at the item of the stack.
+     */
+    default boolean acceptsStack(Ingredient ingredient, ItemStack stack) {
+        if (stack.isEmpty() || isCustom(ingredient)) return ingredient.test(stack);
+        return getAcceptedItems(ingredient).get(BuiltInRegistries.ITEM.getId(stack.getItem()));
+    }
+
+    /**
+     * Returns whether the given ingredient decides itself which stacks it accepts, like the custom ingredients
+     * of mod loaders that also check components. {@link #getAcceptedItems} only approximates those
+     * from their display stacks.
+     */
+    default boolean isCustom(Ingredient ingredient) {
+        return ingredient.getClass() != Ingredient.class;
+    }
+
     boolean isExactMatch(Ingredient ingredient, Item item);
 
     boolean matchesTag(Ingredient ingredient, TagKey<Item> tag);
+
+    /**
+     * Starts recording which ingredients are modified through this helper, see {@link #stopTrackingChanges()}.
+     */
+    @ApiStatus.Internal
+    default void startTrackingChanges() {
+    }
+
+    /**
+     * Returns all ingredients modified through this helper since {@link #startTrackingChanges()} was called.
+     */
+    @ApiStatus.Internal
+    default Collection<Ingredient> stopTrackingChanges() {
+        return List.of();
+    }
+
+    /**
+     * Sets the recipe modifiers are currently applied to on this thread, or null once they are done.
+     * While set, ingredients of that recipe are copied the first time they are changed through this helper,
+     * so changes never affect other recipes sharing the same ingredient instance.
+     */
+    @ApiStatus.Internal
+    default void setCurrentRecipe(@Nullable Recipe<?> recipe) {
+    }
+
+    /**
+     * Replaces ingredients of the given recipes that are equal to an ingredient of another recipe with a single
+     * shared instance. Every replaced ingredient is put into the given map, with the instance it was replaced by.
+     *
+     * @return a rough estimate of the bytes saved
+     */
+    @ApiStatus.Internal
+    default long internIngredients(Collection<RecipeHolder<?>> recipes, Map<Ingredient, Ingredient> replaced) {
+        return 0;
+    }
 }
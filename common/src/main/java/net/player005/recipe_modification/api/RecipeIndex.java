@@ -0,0 +1,107 @@
+package net.player005.recipe_modification.api;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import net.minecraft.core.HolderLookup;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.tags.TagKey;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.crafting.RecipeHolder;
+import net.minecraft.world.item.crafting.RecipeManager;
+import net.minecraft.world.item.crafting.RecipeType;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Lookup tables over all loaded recipes, used to narrow down which recipes a {@link RecipeFilter} has to be
+ * tested against (see {@link RecipeFilter#candidates(RecipeIndex)}).
+ * <p>
+ * A new index is created on every datapack reload, right before modifiers are applied. Every lookup table
+ * is only built once it is first used.
+ */
+public final class RecipeIndex {
+
+    private final RecipeManager recipeManager;
+    private final HolderLookup.Provider registryAccess;
+
+    private @Nullable ImmutableListMultimap<String, RecipeHolder<?>> byNamespace;
+    private @Nullable ImmutableListMultimap<RecipeType<?>, RecipeHolder<?>> byType;
+    private @Nullable RecipesByItem byResult;
+    private @Nullable RecipesByItem byIngredient;
+
+    RecipeIndex(RecipeManager recipeManager, HolderLookup.Provider registryAccess) {
+        this.recipeManager = recipeManager;
+        this.registryAccess = registryAccess;
+    }
+
+    /**
+     * Returns all indexed recipes.
+     */
+    public Collection<RecipeHolder<?>> all() {
+        return recipeManager.getRecipes();
+    }
+
+    /**
+     * Returns the recipe with the given id, if it exists.
+     */
+    public Collection<RecipeHolder<?>> byId(ResourceLocation id) {
+        var recipe = RecipeModification.getPlatform().getRecipeByID(recipeManager, id);
+        return recipe == null ? List.of() : List.of(recipe);
+    }
+
+    /**
+     * Returns all recipes whose id has the given namespace.
+     */
+    public Collection<RecipeHolder<?>> byNamespace(String namespace) {
+        if (byNamespace == null) {
+            var builder = ImmutableListMultimap.<String, RecipeHolder<?>>builder();
+            for (RecipeHolder<?> recipe : all()) builder.put(recipe.id().getNamespace(), recipe);
+            byNamespace = builder.build();
+        }
+        return byNamespace.get(namespace);
+    }
+
+    /**
+     * Returns all recipes of the given type.
+     */
+    public Collection<RecipeHolder<?>> byType(RecipeType<?> type) {
+        if (byType == null) {
+            var builder = ImmutableListMultimap.<RecipeType<?>, RecipeHolder<?>>builder();
+            for (RecipeHolder<?> recipe : all()) builder.put(recipe.value().getType(), recipe);
+            byType = builder.build();
+        }
+        return byType.get(type);
+    }
+
+    /**
+     * Returns all recipes that create the given item.
+     */
+    public Collection<RecipeHolder<?>> byResult(Item item) {
+        if (byResult == null) {
+            byResult = RecipesByItem.ofItem(List.copyOf(all()), recipe ->
+                BuiltInRegistries.ITEM.getId(RecipeModification.getBaseResult(recipe, registryAccess).getItem()));
+        }
+        return byResult.get(item);
+    }
+
+    /**
+     * Returns all recipes that create an item contained in the given tag.
+     */
+    public Collection<RecipeHolder<?>> byResult(TagKey<Item> tag) {
+        var builder = ImmutableList.<RecipeHolder<?>>builder();
+        for (var item : BuiltInRegistries.ITEM.getTagOrEmpty(tag))
+            builder.addAll(byResult(item.value()));
+        return builder.build();
+    }
+
+    /**
+     * Returns all recipes that have at least one ingredient accepting the given item.
+     */
+    public Collection<RecipeHolder<?>> byIngredient(Item item) {
+        if (byIngredient == null) byIngredient = RecipeModification.recipesByIngredient(List.copyOf(all()));
+        return byIngredient.get(item);
+    }
+}
@@ -7,20 +7,32 @@ import net.minecraft.core.NonNullList;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.world.item.Item;
 import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.crafting.Ingredient;
 import net.minecraft.world.item.crafting.Recipe;
 import net.minecraft.world.item.crafting.RecipeHolder;
 import net.minecraft.world.item.crafting.RecipeInput;
 import net.minecraft.world.item.crafting.RecipeManager;
-import net.player005.recipe_modification.impl.RecipeManagerAccessorTwo;
+import net.minecraft.world.level.storage.loot.functions.LootItemFunction;
+import net.player005.recipe_modification.impl.JsonFingerprint;
+import net.player005.recipe_modification.impl.RecipeResultAccessor;
+import net.player005.recipe_modification.impl.ResultCounters;
+import net.player005.recipe_modification.impl.ResultPipeline;
+import net.player005.recipe_modification.impl.jfr.ReloadPhaseEvent;
+import org.apache.commons.lang3.StringUtils;
 import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.annotations.UnknownNullability;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.file.Path;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BinaryOperator;
 import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * The central class for recipe modifications, containing some utility methods.
@@ -40,16 +52,42 @@ public abstract class RecipeModification {
 
     private static final NonNullList<Consumer<RecipeManager>> recipeManagerCallbacks = NonNullList.create();
 
-    private static final NonNullList<ResourceLocation> toRemove = NonNullList.create();
     private static final NonNullList<RecipeModifierHolder> modifiers = NonNullList.create();
-    private static @UnknownNullability ImmutableList<RecipeModifierHolder> modifiersFromDatapack;
-    public static final Multimap<Recipe<?>, ResultItemModifier> resultModifiers =
-        MultimapBuilder.hashKeys().arrayListValues().build();
-    private static final Map<Recipe<?>, ItemStack> resultItemOverrides = new IdentityHashMap<>();
+    // read when planning modifications on the reload's background executor
+    private static volatile @UnknownNullability ImmutableList<RecipeModifierHolder> modifiersFromDatapack;
 
-    private static @UnknownNullability ImmutableMultimap<Item, RecipeHolder<?>> recipesByResult;
+    /**
+     * @deprecated result item modifiers are stored on the recipes themselves now, use
+     * {@link #getResultModifiers(Recipe)} and {@link #modifyResultItem(Recipe, ResultItemModifier)} instead.
+     * This is only a view of them: {@code get} and {@code put} still work, all other methods copy the
+     * modifiers of all recipes, and fail when changing them.
+     */
+    @Deprecated(forRemoval = true)
+    public static final Multimap<Recipe<?>, ResultItemModifier> resultModifiers = new ResultModifiersView();
+
+    /**
+     * The state of the last finished reload, and the one that is currently being applied, if any.
+     */
+    private static volatile @Nullable ModificationGeneration generation;
+    private static volatile @Nullable ModificationGeneration pendingGeneration;
+
+    private static boolean parallelApplication = Boolean.getBoolean(modID + ".parallel");
+    private static boolean verifyParallelApplication = Boolean.getBoolean(modID + ".verify_parallel");
+    private static boolean incrementalReload = Boolean.getBoolean(modID + ".incremental");
+    private static boolean profiling = Boolean.getBoolean(modID + ".profile");
+    private static boolean asyncPlanning = Boolean.getBoolean(modID + ".async_planning");
+    private static volatile @Nullable ModificationPlan pendingPlan;
+    private static volatile @Nullable ModificationProfile lastProfile;
+
+    /**
+     * The id of the modifier currently applied on this thread, so result item modifiers can be attributed to it.
+     */
+    static final ThreadLocal<@Nullable ResourceLocation> applyingModifier = new ThreadLocal<>();
 
-    private static @UnknownNullability RecipeManager recipeManager;
+    private static final MatchCache matchCache = new MatchCache();
+    private static Map<ResourceLocation, JsonFingerprint> recipeFingerprints = Map.of();
+    private static Map<RecipeModifierHolder, JsonFingerprint> filterFingerprints = Map.of();
+    private static volatile @Nullable Path worldDirectory;
 
     /**
      * This method can be used to have some code be executed when the server is starting, right before
@@ -64,14 +102,75 @@ public abstract class RecipeModification {
     }
 
     /**
-     * The given lambda will be called once for EVERY loaded recipe, off-thread
+     * The given lambda will be called once for EVERY loaded recipe, off-thread. All calls happen on the same
+     * thread, one after another, see {@link #forAllRecipesAsync(Consumer, Executor)} to visit recipes in parallel.
+     * <p>
+     * Unlike the other visits, this starts right away, even during a reload.
      *
      * @apiNote The given consumer might be executed asynchronously i.e. not on the main thread.
      */
     public static CompletableFuture<Void> forAllRecipesAsync(Consumer<RecipeHolder<?>> recipeConsumer) {
+        var recipeManager = getRecipeManager();
         return CompletableFuture.runAsync(() -> recipeManager.getRecipes().forEach(recipeConsumer));
     }
 
+    /**
+     * Calls the given consumer once for every loaded recipe, in parallel on the given executor.
+     * The consumer is called from multiple threads at once.
+     *
+     * @see #mapReduceRecipes(Function, Object, BinaryOperator, Executor)
+     */
+    public static CompletableFuture<Void> forAllRecipesAsync(Consumer<RecipeHolder<?>> recipeConsumer,
+                                                             Executor executor) {
+        return visitRecipes(new RecipeVisit<>(recipe -> {
+            recipeConsumer.accept(recipe);
+            return null;
+        }, null, (a, b) -> null, executor, RecipeVisit.RECIPES_PER_TASK));
+    }
+
+    /**
+     * Maps every loaded recipe using the given function and combines the results, in parallel on the given executor
+     * (which can also start a virtual thread per task). Recipes are split into chunks of a few hundred recipes, each
+     * of which is reduced by a single task starting from the identity. The results of the chunks are then combined
+     * in the order of the recipes, so the combiner only has to be associative.
+     * <p>
+     * Cancelling the returned future stops all tasks at the next recipe.
+     * <p>
+     * If called during a reload (like in {@link #onRecipeInit(Consumer)} callbacks), the recipes are visited once
+     * all modifiers were applied, skipping recipes that are going to be removed. The reload waits for the visit to
+     * complete before removing recipes, so the mapper can still remove some. Waiting for the returned future
+     * during the reload on the thread applying it throws an {@link IllegalStateException}, as the visit wouldn't
+     * ever start. The executor must not be the server thread in that case.
+     *
+     * @param mapper   called from multiple threads at once
+     * @param identity the identity of the combiner, used as the start of every chunk
+     * @param combiner combines two results, called from multiple threads at once
+     */
+    public static <T> CompletableFuture<T> mapReduceRecipes(Function<RecipeHolder<?>, ? extends T> mapper,
+                                                            T identity, BinaryOperator<T> combiner,
+                                                            Executor executor) {
+        return visitRecipes(new RecipeVisit<>(mapper, identity, combiner, executor, RecipeVisit.RECIPES_PER_TASK));
+    }
+
+    /**
+     * Like {@link #mapReduceRecipes(Function, Object, BinaryOperator, Executor)}, on the thread pool used for
+     * applying modifiers in parallel.
+     */
+    public static <T> CompletableFuture<T> mapReduceRecipes(Function<RecipeHolder<?>, ? extends T> mapper,
+                                                            T identity, BinaryOperator<T> combiner) {
+        return mapReduceRecipes(mapper, identity, combiner, ParallelApplication.pool());
+    }
+
+    private static <T> CompletableFuture<T> visitRecipes(RecipeVisit<T> visit) {
+        var pending = pendingGeneration;
+        if (pending != null) {
+            visit.defer(pending);
+            pending.deferredVisits.add(visit);
+            return visit.result();
+        }
+        return visit.start(List.copyOf(getRecipeManager().getRecipes()));
+    }
+
     /**
      * Registers a {@link ResultItemModifier} to be applied to the result item of The given recipe.
      *
@@ -79,7 +178,11 @@ public abstract class RecipeModification {
      * @see RecipeModification#replaceResultItem(Recipe, ItemStack)
      */
     public static void modifyResultItem(Recipe<?> recipe, ResultItemModifier modifier) {
-        resultModifiers.put(recipe, modifier);
+        var modifierId = applyingModifier.get();
+        // outside of modifiers, count by class - without the address that hidden classes of lambdas end with
+        var source = modifierId != null ? modifierId.toString()
+            : StringUtils.substringBefore(modifier.getClass().getName(), '/');
+        setResultPipeline(recipe, getResultPipeline(recipe).withModifier(modifier, source));
     }
 
     /**
@@ -89,16 +192,42 @@ public abstract class RecipeModification {
      * @see RecipeModification#replaceResultItem(Recipe, ItemStack)
      */
     public static void modifyResultItemSimple(Recipe<?> recipe, Consumer<ItemStack> modifier) {
-        var result = recipe.getResultItem(getRegistryAccess());
-        modifier.accept(result);
-        if (recipe.getResultItem(getRegistryAccess()) == result) return;
-
-        modifyResultItem(recipe, (recipe1, result1, recipeInput) -> {
-            modifier.accept(result1);
-            return result1;
+        // the result passed to modifiers is always a copy, so the recipe's own result is never changed
+        modifyResultItem(recipe, (recipe1, result, recipeInput) -> {
+            modifier.accept(result);
+            return result;
         });
     }
 
+    /**
+     * Applies the given loot item function to the result item of the given recipe, without a loot context.
+     * Functions that need one, e.g. because they have conditions or use random numbers, are rejected.
+     * <p>
+     * If the function can't depend on anything but the stack (like {@code set_count} or {@code set_components}),
+     * the recipe's result doesn't depend on its input and no other modifier changed it yet, the function is
+     * applied only once, and its output is used as the recipe's result.
+     *
+     * @throws IllegalArgumentException if the function needs a loot context
+     * @see RecipeModification#modifyResultItem(Recipe, ResultItemModifier)
+     */
+    public static void modifyResultItem(Recipe<?> recipe, LootItemFunction function) {
+        LootFunctionModifier.requireNoContext(function);
+        var pipeline = getResultPipeline(recipe);
+        if (pipeline.getModifiers().isEmpty() && LootFunctionModifier.canFold(recipe, function)) {
+            try {
+                // without modifiers, recipes show their own result or the override
+                var result = recipe.getResultItem(getRegistryAccess());
+                setResultPipeline(recipe,
+                    pipeline.withFolded(stack -> LootFunctionModifier.apply(function, stack), result));
+                return;
+            } catch (RuntimeException e) {
+                logger.warn("Couldn't fold item modifier {} into the result of {}, applying it on every call",
+                    function.getType(), recipe, e);
+            }
+        }
+        modifyResultItem(recipe, new LootFunctionModifier(function));
+    }
+
     /**
      * Overrides the result item of the given recipe.
      *
@@ -106,35 +235,66 @@ public abstract class RecipeModification {
      * @see RecipeModification#modifyResultItem(Recipe, ResultItemModifier)
      */
     public static void replaceResultItem(Recipe<?> recipe, ItemStack newResult) {
-        resultItemOverrides.put(recipe, newResult);
+        setResultPipeline(recipe, getResultPipeline(recipe).withOverride(newResult));
+    }
+
+    /**
+     * Returns the {@link ResultItemModifier}s registered for the given recipe, in the order they are applied.
+     *
+     * @see #modifyResultItem(Recipe, ResultItemModifier)
+     */
+    public static List<ResultItemModifier> getResultModifiers(Recipe<?> recipe) {
+        return getResultPipeline(recipe).getModifiers();
+    }
+
+    private static ResultPipeline getResultPipeline(Recipe<?> recipe) {
+        var pipeline = findResultPipeline(recipe);
+        return pipeline == null ? ResultPipeline.EMPTY : pipeline;
+    }
+
+    private static @Nullable ResultPipeline findResultPipeline(Recipe<?> recipe) {
+        if (recipe instanceof RecipeResultAccessor accessor) return accessor.recipeModification$getResultPipeline();
+        var buffer = ModificationBuffer.current();
+        var pipeline = buffer == null ? null : buffer.resultPipelines.get(recipe);
+        if (pipeline != null) return pipeline;
+        var generation = currentGeneration();
+        return generation == null ? null : generation.resultPipelines.get(recipe);
+    }
+
+    /**
+     * Stores the pipeline on the recipe itself if possible. Each recipe is only modified by one thread,
+     * so that doesn't need to be buffered during parallel application.
+     */
+    private static void setResultPipeline(Recipe<?> recipe, ResultPipeline pipeline) {
+        if (recipe instanceof RecipeResultAccessor accessor) {
+            accessor.recipeModification$setResultPipeline(pipeline);
+            return;
+        }
+        var buffer = ModificationBuffer.current();
+        if (buffer != null) buffer.resultPipelines.put(recipe, pipeline);
+        else requireGeneration("modify recipe results").resultPipelines.put(recipe, pipeline);
     }
 
     /**
-     * Finds the RecipeHolder of the given recipe. Try to avoid this method if possible,
-     * as it will iterate through all recipes every time it is called.
+     * Finds the RecipeHolder of the given recipe instance, or null if it isn't loaded.
+     * Uses a lookup table that is built once per reload.
      */
     @UnknownNullability
     public static RecipeHolder<?> findRecipeHolder(Recipe<?> recipe) {
-        for (RecipeHolder<?> recipeHolder : getRecipeManager().getRecipes()) {
-            if (recipeHolder.value().equals(recipe)) {
-                return recipeHolder;
-            }
-        }
-        return null;
+        var buffer = ModificationBuffer.current();
+        if (buffer != null && buffer.ids.containsKey(recipe))
+            return new RecipeHolder<>(buffer.ids.get(recipe), recipe);
+        return requireGeneration("find recipe holders").holderOf(recipe);
     }
 
     /**
-     * Finds the ResourceLocation of the given recipe. Try to avoid this method if possible,
-     * as it will iterate through all recipes every time it is called.
+     * Finds the ResourceLocation of the given recipe instance, or null if it isn't loaded.
+     * Uses a lookup table that is built once per reload.
      */
     @UnknownNullability
     public static ResourceLocation findRecipeID(Recipe<?> recipe) {
-        for (RecipeHolder<?> recipeHolder : getRecipeManager().getRecipes()) {
-            if (recipeHolder.value().equals(recipe)) {
-                return recipeHolder.id();
-            }
-        }
-        return null;
+        var recipeHolder = findRecipeHolder(recipe);
+        return recipeHolder == null ? null : recipeHolder.id();
     }
 
     /**
@@ -143,7 +303,7 @@ public abstract class RecipeModification {
      * @param recipeHolder The recipe to remove
      */
     public static void removeRecipe(RecipeHolder<?> recipeHolder) {
-        toRemove.add(recipeHolder.id());
+        removeRecipe(recipeHolder.id());
     }
 
     /**
@@ -152,11 +312,27 @@ public abstract class RecipeModification {
      * @param id The ResourceLocation of the recipe to remove
      */
     public static void removeRecipe(ResourceLocation id) {
-        toRemove.add(id);
+        var buffer = ModificationBuffer.current();
+        if (buffer != null) {
+            buffer.toRemove.add(id);
+            return;
+        }
+        var generation = requireGeneration("remove recipes");
+        if (generation.recipesRemoved)
+            throw new IllegalStateException("Can't remove recipe " + id + ", recipes were already removed. " +
+                "Remove recipes from a modifier or an onRecipeInit callback instead");
+        // recipe visits may remove recipes from multiple threads at once
+        synchronized (generation.toRemove) {
+            generation.toRemove.add(id);
+        }
     }
 
     /**
      * Registers a {@link RecipeModifierHolder} to be applied when loading recipes.
+     * <p>
+     * The filter is tested on the thread applying the modifiers, unless it is
+     * {@linkplain RecipeFilter#isThreadSafe() thread-safe}, in which case it may also be tested on the reload's
+     * background executor (see {@link #setAsyncPlanning(boolean)}).
      */
     public static void registerModifier(RecipeModifierHolder recipeModifier) {
         modifiers.add(recipeModifier);
@@ -186,8 +362,121 @@ public abstract class RecipeModification {
      * @throws IllegalStateException if the recipe manager isn't initialised yet (see {@link #getRecipeManager()})
      */
     public static RecipeHolder<?> getByID(ResourceLocation id) {
-        checkInitialised("get recipe by ID");
-        return getPlatform().getRecipeByID(recipeManager, id);
+        return getPlatform().getRecipeByID(requireGeneration("get recipe by ID").recipeManager, id);
+    }
+
+    /**
+     * Enables or disables applying modifiers to recipes on multiple threads.
+     * <p>
+     * Recipes that share {@link net.minecraft.world.item.crafting.Ingredient} instances are always modified
+     * by the same thread, and in the same order as when applying sequentially, so the results are identical
+     * as long as custom modifiers and filters don't share mutable state between different recipes.
+     * Can also be enabled using the {@code -Drecipe_modification.parallel=true} system property.
+     *
+     * @param verify if true, all modifiers are additionally applied sequentially to copies of the recipes,
+     *               and any differences to the parallel result are logged. This runs every modifier twice, so
+     *               it is only meant for debugging. Can also be enabled using
+     *               {@code -Drecipe_modification.verify_parallel=true}.
+     */
+    public static void setParallelApplication(boolean parallel, boolean verify) {
+        parallelApplication = parallel;
+        verifyParallelApplication = verify;
+    }
+
+    /**
+     * Enables or disables reusing filter results of previous reloads for datapack modifiers and recipes
+     * whose json (and the item tags referenced in it) didn't change. The results are also saved to
+     * {@code recipe_modification/modification_plan.bin} in the world folder, to be reused after a restart.
+     * <p>
+     * This assumes that {@link #onRecipeInit(Consumer)} callbacks change recipes the same way on every reload.
+     * Can also be enabled using the {@code -Drecipe_modification.incremental=true} system property.
+     */
+    public static void setIncrementalReload(boolean incremental) {
+        incrementalReload = incremental;
+    }
+
+    @ApiStatus.Internal
+    public static boolean isIncrementalReload() {
+        return incrementalReload;
+    }
+
+    /**
+     * Enables or disables recording how long testing and applying each modifier takes on the next reloads,
+     * see {@link #getLastProfile()}. This adds some overhead to every filter test.
+     * Can also be enabled using the {@code -Drecipe_modification.profile=true} system property.
+     */
+    public static void setProfiling(boolean enabled) {
+        profiling = enabled;
+    }
+
+    public static boolean isProfiling() {
+        return profiling;
+    }
+
+    /**
+     * Enables or disables testing the filters of all modifiers on the reload's background executor, before the
+     * reloaded recipes are put into use. Only applying the matching modifiers is then left for the server thread,
+     * which otherwise waits for the whole application to finish.
+     * <p>
+     * The plan is only used if the item tags of the reload are the ones that were bound while planning, and no
+     * modifiers were registered in {@link #onRecipeInit(Consumer)} callbacks. This assumes that these callbacks
+     * don't change recipes in a way that changes which modifiers match them.
+     * Only {@linkplain RecipeFilter#isThreadSafe() thread-safe} filters, like the built-in filters of datapacks,
+     * are planned. The others are tested on the server thread as usual.
+     * Can also be enabled using the {@code -Drecipe_modification.async_planning=true} system property.
+     */
+    public static void setAsyncPlanning(boolean enabled) {
+        asyncPlanning = enabled;
+    }
+
+    public static boolean isAsyncPlanning() {
+        return asyncPlanning;
+    }
+
+    /**
+     * Returns the timings of the last finished reload, or null if recipes weren't loaded yet.
+     */
+    public static @Nullable ModificationProfile getLastProfile() {
+        return lastProfile;
+    }
+
+    /**
+     * Enables or disables counting how often recipe results are computed, and how long their modifications take,
+     * see {@link #getResultStatistics()}. While disabled, computing results only checks a single flag.
+     * Can also be enabled using the {@code -Drecipe_modification.result_stats=true} system property.
+     */
+    public static void setRecordingResultStatistics(boolean enabled) {
+        ResultCounters.setEnabled(enabled);
+    }
+
+    public static boolean isRecordingResultStatistics() {
+        return ResultCounters.isEnabled();
+    }
+
+    /**
+     * Enables or disables recording a latency histogram for every counter of the result statistics.
+     * Can also be enabled using the {@code -Drecipe_modification.result_stats.histogram=true} system property.
+     */
+    public static void setRecordingResultHistograms(boolean enabled) {
+        ResultCounters.setRecordingHistograms(enabled);
+    }
+
+    public static boolean isRecordingResultHistograms() {
+        return ResultCounters.isRecordingHistograms();
+    }
+
+    /**
+     * Returns how often recipe results were computed since the last {@link #resetResultStatistics()},
+     * if recording them is enabled.
+     *
+     * @see #setRecordingResultStatistics(boolean)
+     */
+    public static ResultStatistics getResultStatistics() {
+        return ResultCounters.snapshot();
+    }
+
+    public static void resetResultStatistics() {
+        ResultCounters.reset();
     }
 
     @ApiStatus.Internal
@@ -209,7 +498,8 @@ public abstract class RecipeModification {
      * were called
      */
     public static @UnknownNullability RecipeManager getRecipeManager() {
-        return recipeManager;
+        var generation = currentGeneration();
+        return generation == null ? null : generation.recipeManager;
     }
 
     /**
@@ -218,8 +508,7 @@ public abstract class RecipeModification {
      * @throws IllegalStateException if called before initialisation (see {@link #getRecipeManager()} docs)
      */
     public static HolderLookup.Provider getRegistryAccess() {
-        checkInitialised("get the RecipeManager's registry access");
-        return getPlatform().getRegistryAccess(getRecipeManager());
+        return requireGeneration("get the RecipeManager's registry access").registryAccess;
     }
 
     /**
@@ -231,8 +520,7 @@ public abstract class RecipeModification {
      * @see #getRecipesByResult(Item)
      */
     public static ImmutableMultimap<Item, RecipeHolder<?>> getRecipesByResult() {
-        checkInitialised("get recipes by result map");
-        return recipesByResult;
+        return requireGeneration("get recipes by result map").recipesByResultMultimap();
     }
 
     /**
@@ -244,8 +532,58 @@ public abstract class RecipeModification {
      * @see #getRecipesByResult()
      */
     public static ImmutableCollection<RecipeHolder<?>> getRecipesByResult(Item resultItem) {
-        checkInitialised("get recipe by result");
-        return recipesByResult.get(resultItem);
+        return requireGeneration("get recipe by result").recipesByResult().get(resultItem);
+    }
+
+    /**
+     * Returns all recipes with at least one ingredient accepting the given item, either directly or through a tag.
+     * Unlike {@link #getRecipesByResult(Item)}, this reflects the recipes after all modifiers were applied,
+     * so it is only available once they were, and not yet in {@link #onRecipeInit(Consumer)} callbacks.
+     *
+     * @return an unmodifiable list, in the order of the recipe manager
+     * @throws IllegalStateException if called before all modifiers were applied
+     */
+    public static List<RecipeHolder<?>> getRecipesByIngredient(Item ingredientItem) {
+        var recipesByIngredient = requireGeneration("get recipes by ingredient").recipesByIngredient;
+        if (recipesByIngredient == null)
+            throw new IllegalStateException("Can't get recipes by ingredient before all modifiers were applied");
+        return recipesByIngredient.get(ingredientItem);
+    }
+
+    /**
+     * Returns the result item of the given recipe as it was loaded, before any modifiers of the current reload
+     * were applied. The built-in result filters use this, so they don't depend on the order modifiers are
+     * applied in. The results are copied once per reload, which is much cheaper than calling
+     * {@link Recipe#getResultItem} on modified recipes (which copies and modifies the result every time).
+     * <p>
+     * The returned stack must not be modified.
+     */
+    public static ItemStack getBaseResult(RecipeHolder<?> recipe, HolderLookup.Provider registryAccess) {
+        var generation = currentGeneration();
+        var result = generation == null ? null : generation.baseResults.get(recipe.value());
+        // recipes added after the snapshot was taken
+        if (result == null) return recipe.value().getResultItem(registryAccess);
+        return result;
+    }
+
+    /**
+     * Returns the modified result of the given recipe without a recipe input, as shown in recipe books and
+     * recipe viewers. Unlike {@link Recipe#getResultItem}, this doesn't copy the result: it is computed once
+     * per reload and shared, unless a modifier of the recipe is {@linkplain ResultItemModifier#isInputDependent()
+     * input dependent} (which all modifiers are, unless they opt out).
+     * <p>
+     * <b>Important:</b> The returned stack is shared with every other caller. It must <b>never</b> be modified,
+     * {@link ItemStack#copy() copy()} it before changing its count or components, or before passing it
+     * to an inventory!
+     */
+    public static ItemStack getResultPreview(RecipeHolder<?> recipe, HolderLookup.Provider registryAccess) {
+        var generation = currentGeneration();
+        var base = generation == null ? null : generation.baseResults.get(recipe.value());
+        // recipes added after the snapshot was taken, whose own result may already be modified
+        if (base == null) return recipe.value().getResultItem(registryAccess);
+        var pipeline = findResultPipeline(recipe.value());
+        if (pipeline == null) return base;
+        return pipeline.preview(recipe.value(), base);
     }
 
     public static List<RecipeModifierHolder> getAllModifiers() {
@@ -256,36 +594,189 @@ public abstract class RecipeModification {
     }
 
     public static boolean isInitialised() {
-        return recipeManager != null;
+        return currentGeneration() != null;
+    }
+
+    /**
+     * Returns the generation that is currently being applied, or the last finished one if no reload is running.
+     */
+    private static @Nullable ModificationGeneration currentGeneration() {
+        var pending = pendingGeneration;
+        return pending != null ? pending : generation;
     }
 
-    private static void checkInitialised(String action) {
-        if (!isInitialised())
+    private static ModificationGeneration requireGeneration(String action) {
+        var generation = currentGeneration();
+        if (generation == null)
             throw new IllegalStateException("Can't " + action + " before recipes are initialised." +
                 "Maybe you need to use RecipeModification#onRecipeInit() ?");
+        return generation;
     }
 
+    /**
+     * Returns the modified result of the given recipe. Vanilla recipes apply their modifications themselves,
+     * this is only needed for recipe classes not covered by our mixins.
+     */
     @ApiStatus.Internal
     public static ItemStack getRecipeResult(Recipe<?> recipe, ItemStack currentResult,
                                             @Nullable RecipeInput recipeInput) {
-        currentResult = resultItemOverrides.getOrDefault(recipe, currentResult).copy();
-        for (var modifier : resultModifiers.get(recipe)) {
-            currentResult = modifier.getResultItem(recipe, currentResult, recipeInput);
-        }
-        return currentResult;
+        var pipeline = findResultPipeline(recipe);
+        if (ResultCounters.isEnabled()) return ResultCounters.apply(recipe, pipeline, currentResult, recipeInput);
+        if (pipeline == null) return currentResult;
+        return pipeline.apply(recipe, currentResult, recipeInput);
+    }
+
+    static Set<ResourceLocation> getRecipesToRemove() {
+        return requireGeneration("get recipes to remove").toRemove;
+    }
+
+    /**
+     * Copies the result modifications registered for the given recipe into the buffer, for the given copy.
+     */
+    static void copyResultModifications(Recipe<?> recipe, Recipe<?> copy, ModificationBuffer buffer) {
+        var pipeline = findResultPipeline(recipe);
+        if (pipeline == null) return;
+        if (copy instanceof RecipeResultAccessor accessor) accessor.recipeModification$setResultPipeline(pipeline);
+        else buffer.resultPipelines.put(copy, pipeline);
+    }
+
+    static void commitBuffer(ModificationBuffer buffer) {
+        var generation = requireGeneration("commit modifications");
+        generation.resultPipelines.putAll(buffer.resultPipelines);
+        generation.toRemove.addAll(buffer.toRemove);
     }
 
     @ApiStatus.Internal
     public static void onRecipeManagerLoad(RecipeManager recipeManager) {
-        RecipeModification.recipeManager = recipeManager;
         if (modifiersFromDatapack == null)
             throw new IllegalStateException("Recipes were loaded before recipe modifiers from datapacks");
-        applyModifications();
+        var plan = pendingPlan;
+        pendingPlan = null;
+        beginGeneration(recipeManager, plan != null && plan.recipeManager == recipeManager ? plan : null);
+        try {
+            applyModifications();
+        } finally {
+            // the recipe manager is in use from now on, even if not all modifiers could be applied
+            finishGeneration();
+        }
+    }
+
+    /**
+     * Starts a new generation for the given recipes. Until {@link #finishGeneration()} is called,
+     * all methods of this class use the new generation.
+     */
+    static void beginGeneration(RecipeManager recipeManager) {
+        beginGeneration(recipeManager, null);
+    }
+
+    /**
+     * @param plan the plan made for the given recipes, if any, see {@link #planModifications}
+     */
+    private static void beginGeneration(RecipeManager recipeManager, @Nullable ModificationPlan plan) {
+        pendingGeneration = new ModificationGeneration(recipeManager, getPlatform().getRegistryAccess(recipeManager),
+            plan == null ? new ModificationProfile(profiling) : plan.profile, plan);
+        getPlatform().getHelper().startTrackingChanges();
+    }
+
+    /**
+     * Returns a copy of the modifiers registered from code, which can be read from any thread.
+     *
+     * @see #planModifications
+     */
+    @ApiStatus.Internal
+    public static List<RecipeModifierHolder> snapshotRegisteredModifiers() {
+        return List.copyOf(modifiers);
+    }
+
+    /**
+     * Tests the thread-safe filters of all modifiers against the given recipes on the given executor, before they
+     * are used. The result is used by the next {@link #onRecipeManagerLoad(RecipeManager)} call for the same
+     * recipes.
+     *
+     * @param registeredModifiers the modifiers registered from code, see {@link #snapshotRegisteredModifiers()},
+     *                            taken on the thread that started the reload
+     * @param itemTagsUnchanged whether the item tags loaded with the given recipes are the ones currently bound.
+     *                          Filters see the bound tags, so nothing is planned otherwise.
+     * @see #setAsyncPlanning(boolean)
+     */
+    @ApiStatus.Internal
+    public static CompletableFuture<Void> planModifications(RecipeManager recipeManager,
+                                                            List<RecipeModifierHolder> registeredModifiers,
+                                                            boolean itemTagsUnchanged, Executor executor) {
+        pendingPlan = null;
+        var datapackModifiers = modifiersFromDatapack;
+        if (!asyncPlanning || datapackModifiers == null) return CompletableFuture.completedFuture(null);
+        if (!itemTagsUnchanged) {
+            logger.info("Item tags changed, applying recipe modifiers without a plan");
+            return CompletableFuture.completedFuture(null);
+        }
+
+        var registryAccess = getPlatform().getRegistryAccess(recipeManager);
+        // same order as getAllModifiers(), so the plan is used
+        var modifiers = ImmutableList.<RecipeModifierHolder>builder().addAll(registeredModifiers)
+            .addAll(datapackModifiers).build();
+        var profile = new ModificationProfile(profiling);
+        return CompletableFuture.supplyAsync(() -> {
+                var matches = !incrementalReload ? null : matchCache.start(modifiers, registryAccess, planFile(),
+                    getPlatform().getModVersion(), recipeFingerprints, filterFingerprints);
+                var applier = new ModificationApplier(modifiers, new RecipeIndex(recipeManager, registryAccess),
+                    registryAccess, getPlatform().getHelper(), matches, profile.recordModifiers(modifiers));
+                return ModificationPlan.create(recipeManager, modifiers, applier, matches, profile, executor);
+            }, executor)
+            .thenCompose(plan -> plan)
+            .handle((plan, exception) -> {
+                if (exception != null) logger.error("Failed to plan recipe modifications", exception);
+                else pendingPlan = plan;
+                return null;
+            });
+    }
+
+    /**
+     * Makes the pending generation the current one, releasing the previous generation.
+     */
+    static void finishGeneration() {
+        var finished = pendingGeneration;
+        if (finished != null) lastProfile = finished.profile;
+        generation = finished;
+        pendingGeneration = null;
+        // visits left over because applying modifiers failed
+        if (finished != null) startDeferredVisits(finished);
     }
 
     @ApiStatus.Internal
     public static void updateJsonRecipeModifiers(ImmutableList<RecipeModifierHolder> modifiers) {
+        updateJsonRecipeModifiers(modifiers, Map.of());
+    }
+
+    /**
+     * @param fingerprints the fingerprints of the filters of the given modifiers, by identity
+     */
+    @ApiStatus.Internal
+    public static void updateJsonRecipeModifiers(ImmutableList<RecipeModifierHolder> modifiers,
+                                                 Map<RecipeModifierHolder, JsonFingerprint> fingerprints) {
         modifiersFromDatapack = modifiers;
+        filterFingerprints = fingerprints;
+    }
+
+    /**
+     * Called with the folder of a world when it is opened, before its datapacks are loaded.
+     */
+    @ApiStatus.Internal
+    public static void onWorldOpened(Path directory) {
+        worldDirectory = directory;
+    }
+
+    @ApiStatus.Internal
+    public static void onWorldClosed(Path directory) {
+        if (directory.equals(worldDirectory)) worldDirectory = null;
+    }
+
+    /**
+     * Called with the fingerprints of all recipe jsons, before they are loaded by the recipe manager.
+     */
+    @ApiStatus.Internal
+    public static void updateRecipeFingerprints(Map<ResourceLocation, JsonFingerprint> fingerprints) {
+        recipeFingerprints = fingerprints;
     }
 
     /**
@@ -295,58 +786,230 @@ public abstract class RecipeModification {
      */
     @ApiStatus.Internal
     private static void applyModifications() {
+        var generation = requireGeneration("apply modifications");
+        generation.applyingThread = Thread.currentThread();
+        var profile = generation.profile;
+        var total = Stopwatch.createStarted();
         var timer = Stopwatch.createStarted();
+        var totalEvent = ReloadPhaseEvent.start("total");
 
-        var recipeManagerMutable = CompletableFuture
-            .runAsync(() -> ((RecipeManagerAccessorTwo) recipeManager).recipeModification$makeMutable());
+        var event = ReloadPhaseEvent.start("base_results");
+        snapshotBaseResults();
+        event.commit();
+        profile.recordPhase("base_results", timer.elapsed(TimeUnit.NANOSECONDS));
+        logger.debug("Took snapshot of {} recipe results in {}", getRecipeManager().getRecipes().size(), timer);
+        timer.reset().start();
 
-        var byResultBuilder = ImmutableMultimap.<Item, RecipeHolder<?>>builder();
-        for (RecipeHolder<?> recipeHolder : recipeManager.getRecipes()) {
-            var result = recipeHolder.value().getResultItem(getRegistryAccess());
-            byResultBuilder.put(result.getItem(), recipeHolder);
-        }
+        event = ReloadPhaseEvent.start("recipe_init_callbacks");
+        runRecipeInitCallbacks();
+        event.commit();
+        profile.recordPhase("recipe_init_callbacks", timer.elapsed(TimeUnit.NANOSECONDS));
+        logger.debug("Executed {} recipe callbacks in {}", recipeManagerCallbacks.size(), timer);
+        timer.reset().start();
 
-        recipesByResult = byResultBuilder.build();
-        logger.debug("Built recipe by result map for {} recipes in {}", recipeManager.getRecipes().size(), timer);
+        var allModifiers = getAllModifiers();
+        logger.info("Found {} recipe modifiers in datapacks, {} total",
+            modifiersFromDatapack.size(), allModifiers.size());
+
+        event = ReloadPhaseEvent.start("apply_modifiers");
+        var modified = applyModifiers(allModifiers);
+        event.commit();
+        profile.recordPhase("apply_modifiers", timer.elapsed(TimeUnit.NANOSECONDS));
+
+        // visits may still remove recipes
+        var visiting = Stopwatch.createStarted();
+        event = ReloadPhaseEvent.start("recipe_visits");
+        var visits = runDeferredVisits();
+        event.commit();
+        profile.recordPhase("recipe_visits", visiting.elapsed(TimeUnit.NANOSECONDS));
+        if (visits > 0) logger.debug("Visited all recipes {} times in {}", visits, visiting);
+
+        var removal = Stopwatch.createStarted();
+        event = ReloadPhaseEvent.start("remove_recipes");
+        removeRecipes();
+        event.commit();
+        profile.recordPhase("remove_recipes", removal.elapsed(TimeUnit.NANOSECONDS));
+        logger.info("Modified {} recipes in {}", modified, timer);
         timer.reset().start();
 
+        event = ReloadPhaseEvent.start("intern_ingredients");
+        var saved = internIngredients();
+        event.commit();
+        profile.recordPhase("intern_ingredients", timer.elapsed(TimeUnit.NANOSECONDS));
+        logger.info("Interned recipe ingredients in {}, saving about {} KiB", timer, saved / 1024);
+        timer.reset().start();
+
+        event = ReloadPhaseEvent.start("prewarm_ingredients");
+        var prewarmed = prewarmIngredients();
+        event.commit();
+        profile.recordPhase("prewarm_ingredients", timer.elapsed(TimeUnit.NANOSECONDS));
+        logger.debug("Rebuilt item caches of {} modified ingredients in {}", prewarmed, timer);
+        timer.reset().start();
+
+        event = ReloadPhaseEvent.start("recipes_by_ingredient");
+        var ingredientItems = buildRecipesByIngredient();
+        event.commit();
+        profile.recordPhase("recipes_by_ingredient", timer.elapsed(TimeUnit.NANOSECONDS));
+        logger.debug("Built recipe by ingredient map for {} items in {}", ingredientItems, timer);
+        totalEvent.commit();
+        profile.recordPhase("total", total.elapsed(TimeUnit.NANOSECONDS));
+    }
+
+    // the single steps of applyModifications, also used by the benchmarks
+
+    /**
+     * Takes the snapshot of base results used by {@link #getBaseResult}. The recipe by result map is built from
+     * it the first time it is used.
+     */
+    static void snapshotBaseResults() {
+        var generation = requireGeneration("take snapshot of recipe results");
+        var recipes = List.copyOf(generation.recipeManager.getRecipes());
+        for (RecipeHolder<?> recipeHolder : recipes) {
+            var result = recipeHolder.value().getResultItem(generation.registryAccess).copy();
+            generation.baseResults.put(recipeHolder.value(), result);
+        }
+        generation.baseRecipes = recipes;
+    }
+
+    private static @Nullable Path planFile() {
+        var worldDirectory = RecipeModification.worldDirectory;
+        return worldDirectory == null ? null : worldDirectory.resolve(modID).resolve("modification_plan.bin");
+    }
+
+    static void runRecipeInitCallbacks() {
+        var recipeManager = getRecipeManager();
         for (Consumer<RecipeManager> recipeManagerCallback : recipeManagerCallbacks) {
             recipeManagerCallback.accept(recipeManager);
         }
-        logger.debug("Executed {} recipe callbacks in {}", recipeManagerCallbacks.size(), timer);
+    }
+
+    /**
+     * Applies the given modifiers to all recipes.
+     *
+     * @return the number of applied modifiers
+     */
+    static int applyModifiers(List<RecipeModifierHolder> modifiers) {
+        var timer = Stopwatch.createStarted();
+        var generation = requireGeneration("apply modifiers");
+        var recipeManager = generation.recipeManager;
+        var plan = generation.plan;
+        generation.plan = null;
+        if (plan != null && !plan.isFor(recipeManager, modifiers)) {
+            logger.info("Modifiers changed since they were planned, applying them without a plan");
+            plan = null;
+        }
+
+        MatchCache.@Nullable Session matches;
+        ModificationApplier applier;
+        if (plan != null) {
+            matches = plan.matchCache;
+            applier = plan.applier;
+        } else {
+            var index = new RecipeIndex(recipeManager, getRegistryAccess());
+            matches = !incrementalReload ? null : matchCache.start(modifiers, getRegistryAccess(), planFile(),
+                getPlatform().getModVersion(), recipeFingerprints, filterFingerprints);
+            applier = new ModificationApplier(modifiers, index, getRegistryAccess(), getPlatform().getHelper(),
+                matches, generation.profile.recordModifiers(modifiers));
+            logger.debug("Looked up recipe candidates of {} modifiers ({} without index) in {}",
+                applier.modifierCount(), applier.alwaysTestedCount(), timer);
+        }
 
-        timer.reset().start();
         var modified = 0;
+        if (parallelApplication) {
+            modified = ParallelApplication.apply(List.copyOf(recipeManager.getRecipes()), applier,
+                verifyParallelApplication);
+        } else {
+            for (RecipeHolder<?> recipeHolder : recipeManager.getRecipes())
+                modified += applier.apply(recipeHolder, applier.candidatesOf(recipeHolder));
+        }
 
-        logger.info("Found {} recipe modifiers in datapacks, {} total",
-            modifiersFromDatapack.size(), getAllModifiers().size());
-
-        for (RecipeHolder<?> recipeHolder : recipeManager.getRecipes()) {
-            final var registryAccess = getRegistryAccess();
-
-            // apply recipeModifiers
-            var appliedOnRecipe = 0;
-            for (RecipeModifierHolder modifier : getAllModifiers()) {
-                if (!modifier.filter().shouldApply(recipeHolder, registryAccess)) continue;
-                RecipeHelper helper = getPlatform().getHelper();
-                try {
-                    modifier.apply(recipeHolder.value(), helper);
-                } catch (Exception e) {
-                    logger.error("Failed to apply modifier '{}' to recipe '{}'", modifier.id(), recipeHolder.id(), e);
-                }
-                appliedOnRecipe++;
-            }
+        if (matches != null) matches.finish();
+        return modified;
+    }
+
+    static void removeRecipes() {
+        var generation = requireGeneration("remove recipes");
+        generation.recipesRemoved = true;
+        if (!generation.toRemove.isEmpty())
+            getPlatform().removeRecipes(generation.recipeManager, generation.toRemove);
+    }
+
+    /**
+     * Replaces equal ingredients of different recipes with a single shared instance. Modifiers only ever
+     * change copies of the ingredients of a recipe (see {@link RecipeHelper#setCurrentRecipe}), so this is
+     * done once all of them were applied.
+     *
+     * @return a rough estimate of the bytes saved
+     */
+    static long internIngredients() {
+        var generation = requireGeneration("intern ingredients");
+        return getPlatform().getHelper().internIngredients(generation.recipeManager.getRecipes(),
+            generation.internedIngredients);
+    }
+
+    /**
+     * Rebuilds the item caches of all ingredients modified since the generation was started, in parallel.
+     * Otherwise, they would be rebuilt one by one on the server thread, the first time each recipe is matched.
+     * This also stops tracking changes to ingredients, which {@link #beginGeneration} started.
+     *
+     * @return the number of modified ingredients
+     */
+    static int prewarmIngredients() {
+        var interned = requireGeneration("prewarm ingredients").internedIngredients;
+        var modified = Collections.newSetFromMap(new IdentityHashMap<Ingredient, Boolean>());
+        for (Ingredient ingredient : getPlatform().getHelper().stopTrackingChanges())
+            modified.add(interned.getOrDefault(ingredient, ingredient));
+        var ingredients = List.copyOf(modified);
+        // getStackingIds builds the item stacks first
+        ParallelApplication.pool().submit(() -> ingredients.parallelStream().forEach(Ingredient::getStackingIds))
+            .join();
+        return ingredients.size();
+    }
 
-            if (appliedOnRecipe > 0)
-                logger.debug("Applied {} recipe modifiers to {}", appliedOnRecipe, recipeHolder.id());
+    /**
+     * Starts all visits requested during the reload, and waits for them to complete.
+     *
+     * @return the number of visits
+     */
+    static int runDeferredVisits() {
+        var results = startDeferredVisits(requireGeneration("visit recipes"));
+        // exceptions are passed to the futures of the callers
+        CompletableFuture.allOf(results.stream().map(result -> result.handle((value, exception) -> null))
+            .toArray(CompletableFuture[]::new)).join();
+        return results.size();
+    }
 
-            modified += appliedOnRecipe;
+    private static List<CompletableFuture<?>> startDeferredVisits(ModificationGeneration generation) {
+        List<RecipeVisit<?>> visits;
+        synchronized (generation.deferredVisits) {
+            visits = List.copyOf(generation.deferredVisits);
+            generation.deferredVisits.clear();
         }
+        if (visits.isEmpty()) return List.of();
+        var recipes = generation.recipeManager.getRecipes().stream()
+            .filter(recipe -> !generation.toRemove.contains(recipe.id())).toList();
+        return visits.stream().<CompletableFuture<?>>map(visit -> visit.start(recipes)).toList();
+    }
 
-        recipeManagerMutable.join();
-        recipeManager.getRecipes().removeIf(r -> toRemove.contains(r.id()));
-        recipeManager.getOrderedRecipes().removeIf(r -> toRemove.contains(r.id()));
+    /**
+     * Builds the map returned by {@link #getRecipesByIngredient(Item)}, expanding the ingredients of all
+     * recipes in parallel.
+     *
+     * @return the number of items used as an ingredient
+     */
+    static int buildRecipesByIngredient() {
+        var generation = requireGeneration("build recipes by ingredient map");
+        var recipesByIngredient = recipesByIngredient(List.copyOf(generation.recipeManager.getRecipes()));
+        generation.recipesByIngredient = recipesByIngredient;
+        return recipesByIngredient.itemCount();
+    }
 
-        logger.info("Modified {} recipes in {}", modified, timer);
+    static RecipesByItem recipesByIngredient(List<RecipeHolder<?>> recipes) {
+        var helper = getPlatform().getHelper();
+        return RecipesByItem.ofItems(recipes, recipe -> {
+            var items = new BitSet();
+            for (var ingredient : recipe.value().getIngredients()) items.or(helper.getAcceptedItems(ingredient));
+            return items;
+        });
     }
 }
@@ -5,6 +5,7 @@ import net.minecraft.world.item.Item;
 import net.minecraft.world.item.ItemStack;
 import net.minecraft.world.item.crafting.Ingredient;
 import net.minecraft.world.item.crafting.Recipe;
+import net.minecraft.world.level.storage.loot.functions.LootItemFunction;
 
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -34,9 +35,10 @@ public interface RecipeModifier {
 
     /**
      * Tries to add the given ingredient to the recipe.
+     * Each recipe gets its own copy, so later modifications to it don't affect other recipes.
      */
     static RecipeModifier addIngredient(Ingredient ingredient) {
-        return (recipe, helper) -> recipe.getIngredients().add(ingredient);
+        return (recipe, helper) -> recipe.getIngredients().add(helper.copyIngredient(ingredient));
     }
 
     /**
@@ -45,7 +47,7 @@ public interface RecipeModifier {
     static RecipeModifier addAlternative(Item original, Item alternative) {
         return (recipe, helper) -> {
             for (var ingredient : recipe.getIngredients())
-                if (ingredient.test(original.getDefaultInstance()))
+                if (helper.acceptsItem(ingredient, original))
                     helper.addAlternative(ingredient, alternative);
         };
     }
@@ -56,7 +58,7 @@ public interface RecipeModifier {
     static RecipeModifier addAlternative(Item original, TagKey<Item> alternative) {
         return (recipe, helper) -> {
             for (var ingredient : recipe.getIngredients())
-                if (ingredient.test(original.getDefaultInstance()))
+                if (helper.acceptsItem(ingredient, original))
                     helper.addAlternative(ingredient, alternative);
         };
     }
@@ -106,4 +108,17 @@ public interface RecipeModifier {
     static RecipeModifier modifyResultItem(Consumer<ItemStack> itemStackModifier) {
         return (recipe, helper) -> RecipeModification.modifyResultItemSimple(recipe, itemStackModifier);
     }
+
+    /**
+     * Applies a loot item function (item modifier) to the result item of the recipe.
+     *
+     * @throws IllegalArgumentException if the function needs a loot context, which recipes don't have
+     *                                  (e.g. because it has conditions or uses random numbers)
+     * @see RecipeModification#modifyResultItem(Recipe, LootItemFunction)
+     */
+    static RecipeModifier modifyResultItem(LootItemFunction function) {
+        // fail when loading the modifier, rather than once it is applied
+        LootFunctionModifier.requireNoContext(function);
+        return (recipe, helper) -> RecipeModification.modifyResultItem(recipe, function);
+    }
 }
@@ -0,0 +1,129 @@
+package net.player005.recipe_modification.api;
+
+import net.minecraft.world.item.crafting.RecipeHolder;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.UnknownNullability;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+
+/**
+ * A single map-reduce over recipes, see {@link RecipeModification#mapReduceRecipes}.
+ * <p>
+ * Recipes are split into chunks, each of which is mapped and reduced by a single task on the executor. The results
+ * of the chunks are combined in the order of the recipes once all of them are done. Completing or cancelling the
+ * result future stops all tasks at the next recipe.
+ * <p>
+ * Visits requested during a reload are only started once its modifiers were applied, so the thread applying them
+ * must not wait for the result before that.
+ */
+final class RecipeVisit<T> {
+
+    /**
+     * Number of recipes visited in a single task, if the recipes are split.
+     */
+    static final int RECIPES_PER_TASK = 512;
+
+    private final Function<RecipeHolder<?>, ? extends T> mapper;
+    private final @UnknownNullability T identity;
+    private final BinaryOperator<T> combiner;
+    private final Executor executor;
+    private final int recipesPerTask;
+    private final Result result = new Result();
+    private volatile boolean started;
+    private volatile @Nullable ModificationGeneration deferredIn;
+
+    RecipeVisit(Function<RecipeHolder<?>, ? extends T> mapper, @UnknownNullability T identity,
+                BinaryOperator<T> combiner, Executor executor, int recipesPerTask) {
+        this.mapper = mapper;
+        this.identity = identity;
+        this.combiner = combiner;
+        this.executor = executor;
+        this.recipesPerTask = recipesPerTask;
+    }
+
+    CompletableFuture<T> result() {
+        return result;
+    }
+
+    /**
+     * Marks this visit as started by the given generation once its modifiers were applied.
+     */
+    void defer(ModificationGeneration generation) {
+        deferredIn = generation;
+    }
+
+    /**
+     * Starts visiting the given recipes, unless the visit was cancelled already.
+     */
+    CompletableFuture<T> start(List<RecipeHolder<?>> recipes) {
+        started = true;
+        if (result.isDone()) return result;
+        try {
+            var chunks = new ArrayList<CompletableFuture<T>>();
+            for (int from = 0; from < recipes.size(); from += recipesPerTask) {
+                var chunk = recipes.subList(from, Math.min(recipes.size(), from + recipesPerTask));
+                chunks.add(CompletableFuture.supplyAsync(() -> reduce(chunk), executor));
+            }
+            CompletableFuture.allOf(chunks.toArray(CompletableFuture[]::new)).whenComplete((unused, exception) -> {
+                if (exception != null) {
+                    result.completeExceptionally(exception instanceof CompletionException ? exception.getCause()
+                        : exception);
+                    return;
+                }
+                try {
+                    var reduced = identity;
+                    for (var chunk : chunks) reduced = combiner.apply(reduced, chunk.join());
+                    result.complete(reduced);
+                } catch (RuntimeException e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch (RuntimeException e) {
+            // e.g. the executor rejected a task
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    private T reduce(List<RecipeHolder<?>> chunk) {
+        var reduced = identity;
+        for (RecipeHolder<?> recipe : chunk) {
+            if (result.isDone()) throw new CancellationException();
+            reduced = combiner.apply(reduced, mapper.apply(recipe));
+        }
+        return reduced;
+    }
+
+    /**
+     * Fails instead of blocking the thread that is supposed to start the visit forever.
+     */
+    private final class Result extends CompletableFuture<T> {
+
+        @Override
+        public T get() throws InterruptedException, ExecutionException {
+            checkNotDeadlocking();
+            return super.get();
+        }
+
+        @Override
+        public T join() {
+            checkNotDeadlocking();
+            return super.join();
+        }
+
+        private void checkNotDeadlocking() {
+            var generation = deferredIn;
+            if (started || generation == null || generation.applyingThread != Thread.currentThread()) return;
+            throw new IllegalStateException("Can't wait for a recipe visit during the reload that requested it, " +
+                "it is only started once all modifiers were applied");
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package net.player005.recipe_modification.api;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.crafting.RecipeHolder;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * An immutable map from items to recipes, stored as one list of recipes per raw item id.
+ * Recipes are kept in the order they were given in.
+ */
+final class RecipesByItem {
+
+    private final ImmutableList<RecipeHolder<?>>[] byItemId;
+
+    private RecipesByItem(ImmutableList<RecipeHolder<?>>[] byItemId) {
+        this.byItemId = byItemId;
+    }
+
+    ImmutableList<RecipeHolder<?>> get(Item item) {
+        var id = BuiltInRegistries.ITEM.getId(item);
+        if (id < 0 || id >= byItemId.length) return ImmutableList.of();
+        return byItemId[id];
+    }
+
+    /**
+     * Returns the number of items with at least one recipe.
+     */
+    int itemCount() {
+        var count = 0;
+        for (var recipes : byItemId) if (!recipes.isEmpty()) count++;
+        return count;
+    }
+
+    ImmutableListMultimap<Item, RecipeHolder<?>> toMultimap() {
+        var builder = ImmutableListMultimap.<Item, RecipeHolder<?>>builder();
+        for (int id = 0; id < byItemId.length; id++)
+            if (!byItemId[id].isEmpty()) builder.putAll(BuiltInRegistries.ITEM.byId(id), byItemId[id]);
+        return builder.build();
+    }
+
+    /**
+     * Maps each of the given recipes to a single item, like its result.
+     */
+    static RecipesByItem ofItem(List<RecipeHolder<?>> recipes, ToIntFunction<RecipeHolder<?>> itemOfRecipe) {
+        var itemIds = new int[recipes.size()][];
+        for (int i = 0; i < itemIds.length; i++) itemIds[i] = new int[]{itemOfRecipe.applyAsInt(recipes.get(i))};
+        return build(recipes, itemIds);
+    }
+
+    /**
+     * Maps each of the given recipes to the raw ids of any number of items, in parallel.
+     */
+    static RecipesByItem ofItems(List<RecipeHolder<?>> recipes, Function<RecipeHolder<?>, BitSet> itemsOfRecipe) {
+        var itemIds = ParallelApplication.pool().submit(() -> recipes.parallelStream()
+            .map(recipe -> itemsOfRecipe.apply(recipe).stream().toArray()).toArray(int[][]::new)).join();
+        return build(recipes, itemIds);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static RecipesByItem build(List<RecipeHolder<?>> recipes, int[][] itemIds) {
+        var itemCount = BuiltInRegistries.ITEM.size();
+        var counts = new int[itemCount];
+        for (var ids : itemIds) for (var id : ids) counts[id]++;
+
+        var arrays = new RecipeHolder<?>[itemCount][];
+        for (int id = 0; id < itemCount; id++) if (counts[id] > 0) arrays[id] = new RecipeHolder<?>[counts[id]];
+        Arrays.fill(counts, 0);
+        for (int i = 0; i < itemIds.length; i++)
+            for (var id : itemIds[i]) arrays[id][counts[id]++] = recipes.get(i);
+
+        var byItemId = (ImmutableList<RecipeHolder<?>>[]) new ImmutableList<?>[itemCount];
+        for (int id = 0; id < itemCount; id++)
+            byItemId[id] = arrays[id] == null ? ImmutableList.of() : ImmutableList.copyOf(arrays[id]);
+        return new RecipesByItem(byItemId);
+    }
+}
@@ -23,4 +23,47 @@ public interface ResultItemModifier {
      * a stack from a static field or something like that, make sure to <b>copy()</b> it, otherwise everything explodes!
      */
     ItemStack getResultItem(Recipe<?> recipe, ItemStack result, @Nullable RecipeInput recipeInput);
+
+    /**
+     * Returns whether the result of this modifier may change between calls for the same recipe and result,
+     * e.g. because it depends on the time, on randomness or on the world.
+     * <p>
+     * The preview result of a recipe (without a recipe input) is only computed once per reload and then copied,
+     * unless one of its modifiers is input dependent. Modifiers are input dependent unless they are
+     * {@linkplain #isPure() pure}, so override this to return false to have the preview of a modifier
+     * with side effects cached.
+     */
+    default boolean isInputDependent() {
+        return !isPure();
+    }
+
+    /**
+     * Returns whether the result of this modifier only depends on the recipe, the given result and the items of
+     * the recipe input, and it has no side effects.
+     * <p>
+     * If all modifiers of a recipe are pure, the last few results for each recipe input are cached, so modifiers
+     * won't run again when the recipe is assembled from the same items, e.g. by automated crafters. Pure
+     * modifiers aren't {@linkplain #isInputDependent() input dependent} by default, so their preview is cached
+     * as well.
+     */
+    default boolean isPure() {
+        return false;
+    }
+
+    /**
+     * Returns a {@linkplain #isPure() pure} modifier that calls the given one, mostly for lambdas.
+     */
+    static ResultItemModifier pure(ResultItemModifier modifier) {
+        return new ResultItemModifier() {
+            @Override
+            public ItemStack getResultItem(Recipe<?> recipe, ItemStack result, @Nullable RecipeInput recipeInput) {
+                return modifier.getResultItem(recipe, result, recipeInput);
+            }
+
+            @Override
+            public boolean isPure() {
+                return true;
+            }
+        };
+    }
 }
@@ -0,0 +1,37 @@
+package net.player005.recipe_modification.api;
+
+import com.google.common.collect.ForwardingMultimap;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.Multimap;
+import net.minecraft.world.item.crafting.Recipe;
+
+import java.util.Collection;
+
+/**
+ * Backs the deprecated {@link RecipeModification#resultModifiers} field. Result item modifiers are stored on the
+ * recipes themselves now, so {@link #get} and {@link #put} go right to the recipe, and everything else works on
+ * a read-only snapshot of the modifiers of all loaded recipes.
+ */
+final class ResultModifiersView extends ForwardingMultimap<Recipe<?>, ResultItemModifier> {
+
+    @Override
+    protected Multimap<Recipe<?>, ResultItemModifier> delegate() {
+        var snapshot = ImmutableListMultimap.<Recipe<?>, ResultItemModifier>builder();
+        var recipeManager = RecipeModification.getRecipeManager();
+        if (recipeManager != null)
+            for (var recipe : recipeManager.getRecipes())
+                snapshot.putAll(recipe.value(), RecipeModification.getResultModifiers(recipe.value()));
+        return snapshot.build();
+    }
+
+    @Override
+    public Collection<ResultItemModifier> get(Recipe<?> recipe) {
+        return RecipeModification.getResultModifiers(recipe);
+    }
+
+    @Override
+    public boolean put(Recipe<?> recipe, ResultItemModifier modifier) {
+        RecipeModification.modifyResultItem(recipe, modifier);
+        return true;
+    }
+}
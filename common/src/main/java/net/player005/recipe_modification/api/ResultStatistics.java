@@ -0,0 +1,102 @@
+package net.player005.recipe_modification.api;
+
+import org.jetbrains.annotations.ApiStatus;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * How often recipe results were computed since the statistics were last reset, and how long the result item
+ * modifications took. Results are previewed (like {@code getResultItem}) or assembled (like {@code assemble}).
+ * <p>
+ * Times are only recorded for recipes whose result is modified, so calls of unmodified recipes are only counted.
+ *
+ * @see RecipeModification#getResultStatistics()
+ */
+public final class ResultStatistics {
+
+    private final List<Counter> byRecipeType;
+    private final List<Counter> byRecipeClass;
+    private final List<Counter> byModifier;
+
+    /**
+     * @param recipeTypes the recipe type of each recipe class, in the same order
+     */
+    @ApiStatus.Internal
+    public ResultStatistics(List<Counter> byRecipeClass, List<String> recipeTypes, List<Counter> byModifier) {
+        var byRecipeType = new LinkedHashMap<String, Counter>();
+        for (int i = 0; i < byRecipeClass.size(); i++)
+            byRecipeType.merge(recipeTypes.get(i), byRecipeClass.get(i).withName(recipeTypes.get(i)), Counter::plus);
+        this.byRecipeType = sorted(List.copyOf(byRecipeType.values()));
+        this.byRecipeClass = sorted(byRecipeClass);
+        this.byModifier = sorted(byModifier);
+    }
+
+    private static List<Counter> sorted(List<Counter> counters) {
+        return counters.stream().sorted(Comparator.comparingLong(Counter::nanos).reversed()
+            .thenComparing(Comparator.comparingLong(Counter::calls).reversed())).toList();
+    }
+
+    /**
+     * The counters of each recipe type, most expensive first.
+     */
+    public List<Counter> getByRecipeType() {
+        return byRecipeType;
+    }
+
+    /**
+     * The counters of each recipe class, most expensive first.
+     */
+    public List<Counter> getByRecipeClass() {
+        return byRecipeClass;
+    }
+
+    /**
+     * The counters of the result item modifiers added by each modifier, most expensive first. Result item modifiers
+     * registered from code outside a modifier are counted by their class.
+     */
+    public List<Counter> getByModifier() {
+        return byModifier;
+    }
+
+    /**
+     * @param histogram the number of calls by latency, where bucket {@code i} counts calls that took at least
+     *                  {@code 2^(i-1)} and less than {@code 2^i} nanoseconds, or empty if no histogram was recorded
+     */
+    public record Counter(String name, long previews, long assembles, long nanos, long[] histogram) {
+
+        public long calls() {
+            return previews + assembles;
+        }
+
+        /**
+         * Returns the upper bound of the bucket containing the given percentile (0 to 1) of calls,
+         * or -1 if no histogram was recorded.
+         */
+        public long percentileNanos(double percentile) {
+            long total = 0;
+            for (var bucket : histogram) total += bucket;
+            if (total == 0) return -1;
+            long seen = 0;
+            for (int i = 0; i < histogram.length; i++) {
+                seen += histogram[i];
+                if (seen >= percentile * total) return 1L << i;
+            }
+            return 1L << (histogram.length - 1);
+        }
+
+        private Counter withName(String name) {
+            return new Counter(name, previews, assembles, nanos, histogram);
+        }
+
+        private Counter plus(Counter other) {
+            var histogram = this.histogram.length >= other.histogram.length
+                ? this.histogram.clone() : other.histogram.clone();
+            var smaller = this.histogram.length >= other.histogram.length ? other.histogram : this.histogram;
+            for (int i = 0; i < smaller.length; i++) histogram[i] += smaller[i];
+            return new Counter(name, previews + other.previews, assembles + other.assembles,
+                nanos + other.nanos, histogram);
+        }
+    }
+}
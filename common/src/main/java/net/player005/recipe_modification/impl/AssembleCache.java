@@ -0,0 +1,78 @@
+package net.player005.recipe_modification.impl;
+
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.crafting.CraftingInput;
+import net.minecraft.world.item.crafting.Recipe;
+import net.minecraft.world.item.crafting.RecipeInput;
+import net.player005.recipe_modification.api.ResultItemModifier;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The last results a {@link ResultPipeline} of only {@linkplain ResultItemModifier#isPure() pure} modifiers
+ * computed for recipe inputs. Each input is mapped to one of {@link #SIZE} slots by a fingerprint of its items
+ * and counts, replacing whatever was cached in that slot before.
+ * <p>
+ * Entries are immutable and compared with the full input on every hit, so a fingerprint collision only costs
+ * computing the result again.
+ */
+final class AssembleCache {
+
+    static final int SIZE = 16;
+
+    private final AtomicReferenceArray<@Nullable Entry> entries = new AtomicReferenceArray<>(SIZE);
+
+    /**
+     * @param width    the width of crafting inputs, as the same items can be arranged differently
+     * @param original a copy of the result returned by the recipe itself
+     * @param input    copies of the items of the input
+     */
+    private record Entry(int fingerprint, Recipe<?> recipe, int width, ItemStack original, ItemStack[] input,
+                         ItemStack result) {
+
+        boolean matches(int fingerprint, Recipe<?> recipe, ItemStack original, RecipeInput recipeInput) {
+            if (this.fingerprint != fingerprint || this.recipe != recipe || input.length != recipeInput.size()
+                || width != width(recipeInput) || !ItemStack.matches(this.original, original)) return false;
+            for (int i = 0; i < input.length; i++)
+                if (!ItemStack.matches(input[i], recipeInput.getItem(i))) return false;
+            return true;
+        }
+    }
+
+    /**
+     * Returns the cached result for the given recipe and input, which must not be modified, or null if it isn't
+     * cached.
+     */
+    @Nullable ItemStack get(Recipe<?> recipe, ItemStack original, RecipeInput recipeInput, int fingerprint) {
+        var entry = entries.get(fingerprint & (SIZE - 1));
+        if (entry == null || !entry.matches(fingerprint, recipe, original, recipeInput)) return null;
+        return entry.result;
+    }
+
+    /**
+     * Caches the given result, which must not be modified afterwards.
+     */
+    void put(Recipe<?> recipe, ItemStack original, RecipeInput recipeInput, int fingerprint, ItemStack result) {
+        var input = new ItemStack[recipeInput.size()];
+        for (int i = 0; i < input.length; i++) input[i] = recipeInput.getItem(i).copy();
+        entries.set(fingerprint & (SIZE - 1),
+            new Entry(fingerprint, recipe, width(recipeInput), original.copy(), input, result));
+    }
+
+    /**
+     * Hashes the items and counts of the given input. Components are left out, they are only compared on hits.
+     */
+    static int fingerprint(RecipeInput recipeInput) {
+        var hash = width(recipeInput);
+        for (int i = 0; i < recipeInput.size(); i++) {
+            var stack = recipeInput.getItem(i);
+            hash = 31 * (31 * hash + System.identityHashCode(stack.getItem())) + stack.getCount();
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    private static int width(RecipeInput recipeInput) {
+        return recipeInput instanceof CraftingInput craftingInput ? craftingInput.width() : 0;
+    }
+}
@@ -1,6 +1,11 @@
 package net.player005.recipe_modification.impl;
 
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.world.item.ItemStack;
 import net.minecraft.world.item.crafting.Ingredient;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.BitSet;
 
 public interface IngredientAccessor {
 
@@ -15,4 +20,35 @@ public interface IngredientAccessor {
     default void removeValue(Ingredient.Value value) {
         throw new RuntimeException();
     }
+
+    /**
+     * Returns the raw ids of all items this ingredient accepts. Computed once and cached until
+     * the values of the ingredient are replaced. The returned set must not be modified.
+     */
+    default BitSet getItemIds() {
+        throw new RuntimeException();
+    }
+
+    /**
+     * Computes the value of {@link #getItemIds()} for an ingredient with the given values. Tags are resolved
+     * using the tags that are currently bound, without creating any item stacks. Without values, like for
+     * custom ingredients, the items of the ingredient's stacks are used instead.
+     */
+    static BitSet computeItemIds(Ingredient ingredient, Ingredient.Value @Nullable [] values) {
+        var ids = new BitSet();
+        // custom ingredients on neoforge have no values
+        if (values == null) {
+            for (ItemStack stack : ingredient.getItems()) ids.set(BuiltInRegistries.ITEM.getId(stack.getItem()));
+            return ids;
+        }
+        for (var value : values) {
+            if (value instanceof Ingredient.ItemValue(ItemStack item))
+                ids.set(BuiltInRegistries.ITEM.getId(item.getItem()));
+            else if (value instanceof Ingredient.TagValue(var tag))
+                for (var item : BuiltInRegistries.ITEM.getTagOrEmpty(tag))
+                    ids.set(BuiltInRegistries.ITEM.getId(item.value()));
+            else for (ItemStack stack : value.getItems()) ids.set(BuiltInRegistries.ITEM.getId(stack.getItem()));
+        }
+        return ids;
+    }
 }
@@ -0,0 +1,108 @@
+package net.player005.recipe_modification.impl;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonPrimitive;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.tags.TagKey;
+import net.minecraft.world.item.Item;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.ToLongFunction;
+
+/**
+ * A 64-bit hash of a json element, together with all item tags referenced in it. Tags are referenced either by a
+ * {@code "tag"} member (like in ingredients), or by a string starting with {@code #}.
+ * <p>
+ * As the contents of tags can change without the json changing, they have to be included using {@link #resolve}
+ * before comparing fingerprints.
+ */
+public record JsonFingerprint(long hash, Set<TagKey<Item>> tags) {
+
+    private static final long SEED = 0xcbf29ce484222325L;
+    private static final long MULTIPLIER = 0x100000001b3L;
+
+    public static JsonFingerprint of(@Nullable JsonElement json) {
+        var tags = new LinkedHashSet<TagKey<Item>>();
+        return new JsonFingerprint(mix(hash(json, SEED, tags)), tags);
+    }
+
+    public static Map<ResourceLocation, JsonFingerprint> ofAll(Map<ResourceLocation, JsonElement> jsons) {
+        var fingerprints = new HashMap<ResourceLocation, JsonFingerprint>(jsons.size());
+        jsons.forEach((id, json) -> fingerprints.put(id, of(json)));
+        return fingerprints;
+    }
+
+    /**
+     * Returns the hash of the item ids in the given tag, as currently bound.
+     */
+    public static long hashTag(TagKey<Item> tag) {
+        var hash = SEED;
+        for (var item : BuiltInRegistries.ITEM.getTagOrEmpty(tag))
+            hash = (hash ^ BuiltInRegistries.ITEM.getId(item.value())) * MULTIPLIER;
+        return mix(hash);
+    }
+
+    /**
+     * Combines this fingerprint with the hashes of all referenced tags.
+     */
+    public long resolve(ToLongFunction<TagKey<Item>> tagHashes) {
+        var hash = this.hash;
+        for (var tag : tags) hash = (hash ^ tagHashes.applyAsLong(tag)) * MULTIPLIER;
+        return mix(hash);
+    }
+
+    /**
+     * Combines this fingerprint with the hashes of all referenced tags and the given string.
+     */
+    public long resolve(ToLongFunction<TagKey<Item>> tagHashes, String string) {
+        return mix(hashString(string, resolve(tagHashes)));
+    }
+
+    private static long hash(@Nullable JsonElement json, long hash, Set<TagKey<Item>> tags) {
+        if (json == null || json.isJsonNull()) return (hash ^ 'n') * MULTIPLIER;
+        if (json.isJsonObject()) {
+            hash = (hash ^ '{') * MULTIPLIER;
+            for (var entry : json.getAsJsonObject().entrySet()) {
+                if (entry.getKey().equals("tag") && entry.getValue() instanceof JsonPrimitive tag && tag.isString())
+                    addTag(tag.getAsString(), tags);
+                hash = hash(entry.getValue(), hashString(entry.getKey(), hash), tags);
+            }
+            return (hash ^ '}') * MULTIPLIER;
+        }
+        if (json.isJsonArray()) {
+            hash = (hash ^ '[') * MULTIPLIER;
+            for (var element : json.getAsJsonArray()) hash = hash(element, hash, tags);
+            return (hash ^ ']') * MULTIPLIER;
+        }
+        var primitive = json.getAsJsonPrimitive();
+        if (primitive.isString() && primitive.getAsString().startsWith("#"))
+            addTag(primitive.getAsString().substring(1), tags);
+        var type = primitive.isString() ? 's' : primitive.isNumber() ? 'd' : 'b';
+        return hashString(primitive.getAsString(), (hash ^ type) * MULTIPLIER);
+    }
+
+    private static void addTag(String id, Set<TagKey<Item>> tags) {
+        var location = ResourceLocation.tryParse(id);
+        if (location != null) tags.add(TagKey.create(Registries.ITEM, location));
+    }
+
+    private static long hashString(String string, long hash) {
+        for (int i = 0; i < string.length(); i++) hash = (hash ^ string.charAt(i)) * MULTIPLIER;
+        return (hash ^ string.length()) * MULTIPLIER;
+    }
+
+    /**
+     * The finalizer of MurmurHash3, so that similar inputs don't end up with similar hashes.
+     */
+    private static long mix(long hash) {
+        hash = (hash ^ (hash >>> 33)) * 0xff51afd7ed558ccdL;
+        hash = (hash ^ (hash >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return hash ^ (hash >>> 33);
+    }
+}
@@ -0,0 +1,48 @@
+package net.player005.recipe_modification.impl;
+
+import net.minecraft.core.Holder;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.tags.TagManager;
+import net.minecraft.world.item.Item;
+import org.jetbrains.annotations.ApiStatus;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Compares tags loaded by a reload, but not bound yet, with the tags currently bound to the registries.
+ */
+@ApiStatus.Internal
+public final class PendingTags {
+
+    private PendingTags() {
+    }
+
+    /**
+     * Returns whether the given results contain exactly the item tags that are currently bound, with the same
+     * items in the same order.
+     */
+    public static boolean areItemTagsBound(List<TagManager.LoadResult<?>> results) {
+        for (var result : results) {
+            if (!result.key().equals(Registries.ITEM)) continue;
+
+            var bound = new HashMap<ResourceLocation, List<Item>>();
+            BuiltInRegistries.ITEM.getTags().forEach(tag ->
+                bound.put(tag.getFirst().location(), tag.getSecond().stream().map(Holder::value).toList()));
+            if (bound.size() != result.tags().size()) return false;
+            for (var tag : result.tags().entrySet()) {
+                var items = bound.get(tag.getKey());
+                if (items == null || !items.equals(values(tag.getValue()))) return false;
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private static List<?> values(Collection<? extends Holder<?>> holders) {
+        return holders.stream().map(Holder::value).toList();
+    }
+}
@@ -5,22 +5,33 @@ import net.minecraft.resources.ResourceLocation;
 import net.minecraft.tags.TagKey;
 import net.minecraft.world.item.Item;
 import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.Items;
 import net.minecraft.world.item.crafting.Ingredient;
+import net.minecraft.world.item.crafting.Recipe;
 import net.minecraft.world.item.crafting.RecipeHolder;
 import net.minecraft.world.item.crafting.RecipeManager;
+import net.minecraft.world.item.crafting.ShapedRecipe;
+import net.minecraft.world.item.crafting.ShapedRecipePattern;
 import net.player005.recipe_modification.api.Platform;
 import net.player005.recipe_modification.api.RecipeHelper;
 import net.player005.recipe_modification.impl.mixin.RecipeManagerAccessor;
+import net.player005.recipe_modification.impl.mixin.ShapedRecipeAccessor;
+import net.player005.recipe_modification.impl.mixin.ShapedRecipePatternAccessor;
 import org.apache.commons.lang3.ArrayUtils;
 import org.jetbrains.annotations.NotNullByDefault;
+import org.jetbrains.annotations.Nullable;
 
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
+import java.util.*;
 
 @NotNullByDefault
 public class Platform_1_21 implements Platform {
 
+    private final String modVersion;
+
+    public Platform_1_21(String modVersion) {
+        this.modVersion = modVersion;
+    }
+
     @Override
     public HolderLookup.Provider getRegistryAccess(RecipeManager recipeManager) {
         return ((RecipeManagerAccessor) recipeManager).getRegistries();
@@ -36,61 +47,294 @@ public class Platform_1_21 implements Platform {
         return RecipeHelper_1_21.INSTANCE;
     }
 
+    @Override
+    public String getModVersion() {
+        return modVersion;
+    }
+
+    @Override
+    public void removeRecipes(RecipeManager recipeManager, Set<ResourceLocation> ids) {
+        // iterate by type so recipes keep their order within each type, which decides which recipe matches first
+        var kept = new ArrayList<RecipeHolder<?>>(recipeManager.getOrderedRecipes().size());
+        for (RecipeHolder<?> recipe : recipeManager.getOrderedRecipes())
+            if (!ids.contains(recipe.id())) kept.add(recipe);
+
+        // replaceRecipes rebuilds both maps as immutable ones, but also resets the error flag
+        var hadErrors = recipeManager.hadErrorsLoading();
+        recipeManager.replaceRecipes(kept);
+        ((RecipeManagerAccessor) recipeManager).setHasErrors(hadErrors);
+    }
+
     public static class RecipeHelper_1_21 implements RecipeHelper {
 
         static RecipeHelper INSTANCE = new RecipeHelper_1_21();
 
+        /**
+         * Rough sizes in bytes of the objects making up an ingredient, assuming compressed references.
+         */
+        private static final int INGREDIENT_SIZE = 32, ARRAY_SIZE = 16, REFERENCE_SIZE = 4, VALUE_SIZE = 16,
+            ITEM_STACK_SIZE = 40;
+
+        private volatile @Nullable Set<Ingredient> modifiedIngredients;
+
+        private final ThreadLocal<@Nullable CurrentRecipe> currentRecipe = new ThreadLocal<>();
+
         public static IngredientAccessor getAccessor(Ingredient ingredient) {
             return (IngredientAccessor) (Object) ingredient;
         }
 
-        public static void replaceIngredientValues(Ingredient ingredient, Ingredient.Value[] values) {
-            getAccessor(ingredient).replaceValues(values);
+        /**
+         * Returns the accessor used by this helper to read and write the values of the given ingredient.
+         * Can be overridden to use this helper without mixins.
+         */
+        protected IngredientAccessor accessor(Ingredient ingredient) {
+            return getAccessor(ingredient);
+        }
+
+        /**
+         * Returns the values of the given ingredient, or of the copy that replaced it in the current recipe.
+         */
+        private Ingredient.Value[] values(Ingredient ingredient) {
+            var recipe = currentRecipe.get();
+            return accessor(recipe == null ? ingredient : recipe.resolve(ingredient)).getValues();
+        }
+
+        /**
+         * Replaces the values of the given ingredient. All changes to ingredients go through this method.
+         * <p>
+         * While modifiers are applied to a recipe (see {@link #setCurrentRecipe}), the ingredient is copied with the
+         * new values instead, and the copy replaces it in the recipe. Ingredients that aren't part of the recipe's
+         * own ingredient list (like those of cooking recipes, which return a new list every time) are changed
+         * in place.
+         */
+        public void replaceIngredientValues(Ingredient ingredient, Ingredient.Value[] values) {
+            var recipe = currentRecipe.get();
+            if (recipe != null) {
+                ingredient = recipe.resolve(ingredient);
+                if (!recipe.owns(ingredient)) {
+                    var copy = newIngredient(values);
+                    if (recipe.replace(ingredient, copy)) {
+                        trackChange(copy);
+                        return;
+                    }
+                }
+            }
+            accessor(ingredient).replaceValues(values);
+            trackChange(ingredient);
+        }
+
+        /**
+         * Returns a new ingredient with the given values. Unlike {@link Ingredient#fromValues}, this never returns
+         * the shared {@link Ingredient#EMPTY} for empty values, so a recipe can own an emptied ingredient and
+         * change it again without changing its blank slots.
+         */
+        private Ingredient newIngredient(Ingredient.Value[] values) {
+            if (values.length > 0) return Ingredient.fromValues(Arrays.stream(values));
+            var ingredient = Ingredient.of(Items.BARRIER);
+            accessor(ingredient).replaceValues(values);
+            return ingredient;
+        }
+
+        private void trackChange(Ingredient ingredient) {
+            var modified = modifiedIngredients;
+            if (modified != null) modified.add(ingredient);
+        }
+
+        @Override
+        public void startTrackingChanges() {
+            // ingredients compare their values in equals(), which change here
+            modifiedIngredients = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+        }
+
+        @Override
+        public Collection<Ingredient> stopTrackingChanges() {
+            var modified = modifiedIngredients;
+            modifiedIngredients = null;
+            return modified == null ? List.of() : modified;
+        }
+
+        @Override
+        public void setCurrentRecipe(@Nullable Recipe<?> recipe) {
+            var previous = currentRecipe.get();
+            if (previous != null && previous.recipe instanceof ShapedRecipe shapedRecipe && !previous.copies.isEmpty())
+                replaceInPattern(shapedRecipe, previous.copies);
+            if (recipe == null) currentRecipe.remove();
+            else currentRecipe.set(new CurrentRecipe(recipe));
+        }
+
+        @Override
+        public long internIngredients(Collection<RecipeHolder<?>> recipes, Map<Ingredient, Ingredient> replaced) {
+            var canonical = new HashMap<List<Object>, Ingredient>();
+
+            long saved = 0;
+            for (RecipeHolder<?> recipeHolder : recipes) {
+                var ingredients = CurrentRecipe.ownIngredients(recipeHolder.value());
+                if (ingredients == null) continue;
+                var interned = false;
+                try {
+                    for (int i = 0; i < ingredients.size(); i++) {
+                        var ingredient = ingredients.get(i);
+                        var shared = replaced.get(ingredient);
+                        if (shared != null) {
+                            ingredients.set(i, shared);
+                            interned = true;
+                            continue;
+                        }
+
+                        // custom ingredients don't compare by their values, e.g. those on fabric have none at all
+                        if (isCustom(ingredient)) continue;
+                        var values = accessor(ingredient).getValues();
+                        var key = internKey(values);
+                        if (key == null) continue;
+                        shared = canonical.putIfAbsent(key, ingredient);
+                        if (shared == null || shared == ingredient) continue;
+                        ingredients.set(i, shared);
+                        replaced.put(ingredient, shared);
+                        interned = true;
+                        saved += estimateSize(values);
+                    }
+                } catch (UnsupportedOperationException e) {
+                    // the recipe's ingredient list is immutable
+                }
+                if (interned && recipeHolder.value() instanceof ShapedRecipe shapedRecipe)
+                    replaceInPattern(shapedRecipe, replaced);
+            }
+            return saved;
+        }
+
+        /**
+         * Replaces ingredients in the key of the given recipe's pattern, so that it references the same
+         * ingredients as the recipe's ingredient list again. The key is what the recipe is encoded with.
+         *
+         * @param replaced maps ingredients to the ingredients they were replaced with in the ingredient list
+         */
+        private void replaceInPattern(ShapedRecipe recipe, Map<Ingredient, Ingredient> replaced) {
+            var data = getPatternData(recipe);
+            if (data.isEmpty()) return;
+
+            var key = new LinkedHashMap<>(data.get().key());
+            var changed = false;
+            for (var entry : key.entrySet()) {
+                var ingredient = entry.getValue();
+                // an ingredient may be replaced again within the same recipe, e.g. after it was emptied
+                for (var next = replaced.get(ingredient); next != null && next != ingredient; next = replaced.get(next))
+                    ingredient = next;
+                if (ingredient == entry.getValue()) continue;
+                entry.setValue(ingredient);
+                changed = true;
+            }
+            if (changed) setPatternData(recipe,
+                Optional.of(new ShapedRecipePattern.Data(Collections.unmodifiableMap(key), data.get().pattern())));
+        }
+
+        /**
+         * Returns the key and rows the pattern of the given recipe was created from, if it was created from them.
+         * Can be overridden to use this helper without mixins.
+         */
+        protected Optional<ShapedRecipePattern.Data> getPatternData(ShapedRecipe recipe) {
+            return ((ShapedRecipePatternAccessor) (Object) ((ShapedRecipeAccessor) recipe).getPattern()).getData();
+        }
+
+        /**
+         * Replaces the key and rows of the pattern of the given recipe. Can be overridden to use this helper
+         * without mixins.
+         */
+        protected void setPatternData(ShapedRecipe recipe, Optional<ShapedRecipePattern.Data> data) {
+            ((ShapedRecipePatternAccessor) (Object) ((ShapedRecipeAccessor) recipe).getPattern()).setData(data);
+        }
+
+        /**
+         * Returns a key that is equal for ingredients with equal values, or null if the ingredient
+         * has values that can't be compared (like item stacks with components), or no values at all.
+         */
+        private static @Nullable List<Object> internKey(Ingredient.Value[] values) {
+            // blank slots of shaped recipes share Ingredient.EMPTY already, and other empty ingredients are
+            // owned by the recipe that emptied them
+            if (values.length == 0) return null;
+            var key = new Object[values.length];
+            for (int i = 0; i < values.length; i++) {
+                if (values[i] instanceof Ingredient.ItemValue(ItemStack item)
+                    && item.getCount() == 1 && item.getComponentsPatch().isEmpty())
+                    key[i] = item.getItem();
+                else if (values[i] instanceof Ingredient.TagValue(var tag))
+                    key[i] = tag;
+                else return null;
+            }
+            return Arrays.asList(key);
+        }
+
+        private static long estimateSize(Ingredient.Value[] values) {
+            long size = INGREDIENT_SIZE + ARRAY_SIZE + (long) REFERENCE_SIZE * values.length;
+            for (var value : values)
+                size += value instanceof Ingredient.ItemValue ? VALUE_SIZE + ITEM_STACK_SIZE : VALUE_SIZE;
+            return size;
         }
 
         @Override
         public void addAlternative(Ingredient ingredient, Item... items) {
             var ingredientValues = Arrays.stream(items)
                 .map(ItemStack::new).map(Ingredient.ItemValue::new).toArray(Ingredient.Value[]::new);
-            var newValues = ArrayUtils.addAll(getAccessor(ingredient).getValues(), ingredientValues);
-            getAccessor(ingredient).replaceValues(newValues);
+            replaceIngredientValues(ingredient, ArrayUtils.addAll(values(ingredient), ingredientValues));
         }
 
         @Override
         public void addAlternative(Ingredient ingredient, TagKey<Item> itemTag) {
-            replaceIngredientValues(ingredient, ArrayUtils.add(getAccessor(ingredient).getValues(),
-                new Ingredient.TagValue(itemTag)));
+            replaceIngredientValues(ingredient, ArrayUtils.add(values(ingredient), new Ingredient.TagValue(itemTag)));
         }
 
         @Override
         public void addAlternative(Ingredient ingredient, Ingredient alternative) {
-            replaceIngredientValues(ingredient, ArrayUtils.addAll(getAccessor(ingredient).getValues(),
-                getAccessor(alternative).getValues()));
+            replaceIngredientValues(ingredient, ArrayUtils.addAll(values(ingredient), values(alternative)));
         }
 
         @Override
         public void removeAlternatives(Ingredient ingredient, Item... items) {
-            var newValues = new ArrayList<>(List.of(getAccessor(ingredient).getValues()));
+            var newValues = new ArrayList<>(List.of(values(ingredient)));
             for (var item : items)
                 newValues.removeIf(value -> value instanceof Ingredient.ItemValue(ItemStack item1) && item1.is(item));
-            getAccessor(ingredient).replaceValues(newValues.toArray(new Ingredient.Value[0]));
+            replaceIngredientValues(ingredient, newValues.toArray(new Ingredient.Value[0]));
         }
 
         @Override
         public void removeAlternative(Ingredient ingredient, TagKey<Item> itemTag) {
-            var newValues = new ArrayList<>(List.of(getAccessor(ingredient).getValues()));
+            var newValues = new ArrayList<>(List.of(values(ingredient)));
             newValues.removeIf(value -> value instanceof Ingredient.TagValue(var tag) && itemTag.equals(tag));
-            getAccessor(ingredient).replaceValues(newValues.toArray(new Ingredient.Value[0]));
+            replaceIngredientValues(ingredient, newValues.toArray(new Ingredient.Value[0]));
         }
 
         @Override
         public void replaceIngredient(Ingredient ingredient, Ingredient newIngredient) {
-            replaceIngredientValues(ingredient, getAccessor(newIngredient).getValues());
+            replaceIngredientValues(ingredient, values(newIngredient));
+        }
+
+        @Override
+        public Ingredient copyIngredient(Ingredient ingredient) {
+            var values = values(ingredient);
+            // custom ingredients on neoforge have no values, and can't be modified anyway
+            //noinspection ConstantValue
+            if (values == null || values.length == 0) return ingredient;
+            return Ingredient.fromValues(Arrays.stream(values));
+        }
+
+        @Override
+        public BitSet getAcceptedItems(Ingredient ingredient) {
+            var recipe = currentRecipe.get();
+            if (recipe != null) ingredient = recipe.resolve(ingredient);
+            // custom ingredients on fabric have no values either, only their stacks tell which items they accept
+            if (isCustom(ingredient)) return IngredientAccessor.computeItemIds(ingredient, null);
+            return accessor(ingredient).getItemIds();
+        }
+
+        @Override
+        public boolean isCustom(Ingredient ingredient) {
+            // custom ingredients on neoforge have no values, those on fabric are subclasses
+            //noinspection ConstantValue
+            return ingredient.getClass() != Ingredient.class || values(ingredient) == null;
         }
 
         @Override
         public boolean isExactMatch(Ingredient ingredient, Item item) {
-            for (Ingredient.Value value : getAccessor(ingredient).getValues())
+            for (Ingredient.Value value : values(ingredient))
                 if (value instanceof Ingredient.ItemValue(ItemStack item1) && item1.is(item))
                     return true;
             return false;
@@ -98,10 +342,78 @@ public class Platform_1_21 implements Platform {
 
         @Override
         public boolean matchesTag(Ingredient ingredient, TagKey<Item> tag) {
-            for (Ingredient.Value value : getAccessor(ingredient).getValues())
+            for (Ingredient.Value value : values(ingredient))
                 if (value instanceof Ingredient.TagValue(var tag1) && tag1.equals(tag))
                     return true;
             return false;
         }
+
+        /**
+         * The recipe modifiers are currently applied to, and the copies of its ingredients made so far.
+         */
+        private static final class CurrentRecipe {
+
+            private final Recipe<?> recipe;
+            private final Map<Ingredient, Ingredient> copies = new IdentityHashMap<>(4);
+            private @Nullable List<Ingredient> ingredients;
+            private boolean ingredientsLoaded;
+
+            CurrentRecipe(Recipe<?> recipe) {
+                this.recipe = recipe;
+            }
+
+            /**
+             * Returns the list the given recipe stores its ingredients in, or null if it returns a new list
+             * every time.
+             */
+            static @Nullable List<Ingredient> ownIngredients(Recipe<?> recipe) {
+                var ingredients = recipe.getIngredients();
+                return ingredients == recipe.getIngredients() ? ingredients : null;
+            }
+
+            /**
+             * Returns the copy that replaced the given ingredient in this recipe, or the ingredient itself.
+             */
+            Ingredient resolve(Ingredient ingredient) {
+                var copy = copies.get(ingredient);
+                return copy == null ? ingredient : copy;
+            }
+
+            /**
+             * Returns whether the given ingredient was copied for this recipe, and can be changed in place.
+             */
+            boolean owns(Ingredient ingredient) {
+                return copies.get(ingredient) == ingredient;
+            }
+
+            /**
+             * Replaces the given ingredient with the copy everywhere in this recipe's ingredient list.
+             *
+             * @return false if the ingredient isn't in the list, or the list can't be changed
+             */
+            boolean replace(Ingredient ingredient, Ingredient copy) {
+                if (!ingredientsLoaded) {
+                    ingredients = ownIngredients(recipe);
+                    ingredientsLoaded = true;
+                }
+                if (ingredients == null) return false;
+
+                var replaced = false;
+                try {
+                    for (int i = 0; i < ingredients.size(); i++) {
+                        if (ingredients.get(i) != ingredient) continue;
+                        ingredients.set(i, copy);
+                        replaced = true;
+                    }
+                } catch (UnsupportedOperationException e) {
+                    return false;
+                }
+                if (!replaced) return false;
+
+                copies.put(ingredient, copy);
+                copies.put(copy, copy);
+                return true;
+            }
+        }
     }
 }
@@ -1,11 +0,0 @@
-package net.player005.recipe_modification.impl;
-
-import org.jetbrains.annotations.ApiStatus;
-
-@ApiStatus.Internal
-public interface RecipeManagerAccessorTwo {
-
-    default void recipeModification$makeMutable() {
-        throw new RuntimeException();
-    }
-}
\ No newline at end of file
@@ -0,0 +1,178 @@
+package net.player005.recipe_modification.impl;
+
+import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.arguments.IntegerArgumentType;
+import com.mojang.logging.LogUtils;
+import net.minecraft.commands.CommandSourceStack;
+import net.minecraft.commands.Commands;
+import net.minecraft.network.chat.Component;
+import net.player005.recipe_modification.api.RecipeModification;
+import net.player005.recipe_modification.api.ResultStatistics;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The {@code /recipe_modification} command, for operators.
+ * <ul>
+ *     <li>{@code profile [count]} shows the phases of the last reload and its most expensive modifiers</li>
+ *     <li>{@code profile enable|disable} turns recording the cost of each modifier on or off</li>
+ *     <li>{@code profile dump} writes the whole profile of the last reload to a CSV file in the server folder</li>
+ *     <li>{@code results [count]} shows how often recipe results were computed, by recipe type and modifier</li>
+ *     <li>{@code results enable|disable|reset} controls recording these statistics</li>
+ *     <li>{@code results histogram enable|disable} controls recording latency histograms for them</li>
+ * </ul>
+ */
+public final class RecipeModificationCommand {
+
+    private static final Logger LOGGER = LogUtils.getLogger();
+    private static final int DEFAULT_COUNT = 10;
+    private static final String DUMP_FILE = RecipeModification.modID + "_profile.csv";
+
+    private RecipeModificationCommand() {
+    }
+
+    public static void register(CommandDispatcher<CommandSourceStack> dispatcher) {
+        dispatcher.register(Commands.literal(RecipeModification.modID)
+            .requires(source -> source.hasPermission(Commands.LEVEL_GAMEMASTERS))
+            .then(Commands.literal("profile")
+                .executes(context -> showProfile(context.getSource(), DEFAULT_COUNT))
+                .then(Commands.argument("count", IntegerArgumentType.integer(1))
+                    .executes(context -> showProfile(context.getSource(),
+                        IntegerArgumentType.getInteger(context, "count"))))
+                .then(Commands.literal("enable").executes(context -> setProfiling(context.getSource(), true)))
+                .then(Commands.literal("disable").executes(context -> setProfiling(context.getSource(), false)))
+                .then(Commands.literal("dump").executes(context -> dump(context.getSource()))))
+            .then(Commands.literal("results")
+                .executes(context -> showResults(context.getSource(), DEFAULT_COUNT))
+                .then(Commands.argument("count", IntegerArgumentType.integer(1))
+                    .executes(context -> showResults(context.getSource(),
+                        IntegerArgumentType.getInteger(context, "count"))))
+                .then(Commands.literal("enable").executes(context -> setRecordingResults(context.getSource(), true)))
+                .then(Commands.literal("disable")
+                    .executes(context -> setRecordingResults(context.getSource(), false)))
+                .then(Commands.literal("reset").executes(context -> resetResults(context.getSource())))
+                .then(Commands.literal("histogram")
+                    .then(Commands.literal("enable")
+                        .executes(context -> setRecordingHistograms(context.getSource(), true)))
+                    .then(Commands.literal("disable")
+                        .executes(context -> setRecordingHistograms(context.getSource(), false))))));
+    }
+
+    private static int showProfile(CommandSourceStack source, int count) {
+        var profile = RecipeModification.getLastProfile();
+        if (profile == null) {
+            source.sendFailure(Component.literal("Recipes weren't loaded yet"));
+            return 0;
+        }
+
+        var message = new StringBuilder("Phases of the last reload:");
+        for (var phase : profile.getPhases())
+            message.append("\n  ").append(phase.name()).append(": ").append(millis(phase.nanos()));
+
+        if (profile.hasModifierStats()) {
+            var stats = profile.getModifierStats();
+            message.append("\nMost expensive of ").append(stats.size()).append(" modifiers:");
+            for (int i = 0; i < Math.min(count, stats.size()); i++) {
+                var modifier = stats.get(i);
+                message.append(String.format(Locale.ROOT, "\n  %d. %s: %s (filter %s in %d tests, %d matches, " +
+                        "apply %s, %d errors)", i + 1, modifier.id(), millis(modifier.totalNanos()),
+                    millis(modifier.filterNanos()), modifier.filterTests(), modifier.matches(),
+                    millis(modifier.applyNanos()), modifier.exceptions()));
+            }
+        } else {
+            message.append("\nModifiers weren't profiled, use '/")
+                .append(RecipeModification.modID).append(" profile enable' and reload to profile them");
+        }
+
+        source.sendSuccess(() -> Component.literal(message.toString()), false);
+        return 1;
+    }
+
+    private static int setProfiling(CommandSourceStack source, boolean enabled) {
+        RecipeModification.setProfiling(enabled);
+        source.sendSuccess(() -> Component.literal(enabled
+            ? "Modifiers will be profiled from the next reload on"
+            : "Modifiers won't be profiled anymore"), true);
+        return 1;
+    }
+
+    private static int dump(CommandSourceStack source) {
+        var profile = RecipeModification.getLastProfile();
+        if (profile == null) {
+            source.sendFailure(Component.literal("Recipes weren't loaded yet"));
+            return 0;
+        }
+
+        var file = source.getServer().getServerDirectory().resolve(DUMP_FILE);
+        try {
+            profile.writeCsv(file);
+        } catch (IOException e) {
+            LOGGER.error("Failed to write recipe modification profile to {}", file, e);
+            source.sendFailure(Component.literal("Failed to write " + file + ": " + e.getMessage()));
+            return 0;
+        }
+        source.sendSuccess(() -> Component.literal("Wrote profile to " + file.toAbsolutePath()), false);
+        return 1;
+    }
+
+    private static int showResults(CommandSourceStack source, int count) {
+        var statistics = RecipeModification.getResultStatistics();
+        var message = new StringBuilder();
+        if (!RecipeModification.isRecordingResultStatistics()) {
+            message.append("Result statistics aren't being recorded, use '/").append(RecipeModification.modID)
+                .append(" results enable' to record them\n");
+        }
+        appendCounters(message, "Recipe types", statistics.getByRecipeType(), count);
+        appendCounters(message, "Modifiers", statistics.getByModifier(), count);
+        source.sendSuccess(() -> Component.literal(message.toString().stripTrailing()), false);
+        return 1;
+    }
+
+    private static void appendCounters(StringBuilder message, String title,
+                                       List<ResultStatistics.Counter> counters, int count) {
+        message.append(title).append(" (").append(counters.size()).append("):");
+        for (int i = 0; i < Math.min(count, counters.size()); i++) {
+            var counter = counters.get(i);
+            message.append(String.format(Locale.ROOT, "\n  %s: %d previews, %d assembles, %s",
+                counter.name(), counter.previews(), counter.assembles(), millis(counter.nanos())));
+            if (counter.percentileNanos(0.5) >= 0) {
+                message.append(String.format(Locale.ROOT, " (p50 < %s, p99 < %s)",
+                    micros(counter.percentileNanos(0.5)), micros(counter.percentileNanos(0.99))));
+            }
+        }
+        message.append('\n');
+    }
+
+    private static int setRecordingResults(CommandSourceStack source, boolean enabled) {
+        RecipeModification.setRecordingResultStatistics(enabled);
+        source.sendSuccess(() -> Component.literal(enabled
+            ? "Recording result statistics"
+            : "Stopped recording result statistics"), true);
+        return 1;
+    }
+
+    private static int resetResults(CommandSourceStack source) {
+        RecipeModification.resetResultStatistics();
+        source.sendSuccess(() -> Component.literal("Reset result statistics"), true);
+        return 1;
+    }
+
+    private static int setRecordingHistograms(CommandSourceStack source, boolean enabled) {
+        RecipeModification.setRecordingResultHistograms(enabled);
+        source.sendSuccess(() -> Component.literal(enabled
+            ? "Recording latency histograms of result statistics"
+            : "Stopped recording latency histograms of result statistics"), true);
+        return 1;
+    }
+
+    private static String micros(long nanos) {
+        return String.format(Locale.ROOT, "%.1f us", nanos / 1e3);
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f ms", nanos / 1e6);
+    }
+}
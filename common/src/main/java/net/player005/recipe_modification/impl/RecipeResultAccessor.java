@@ -0,0 +1,19 @@
+package net.player005.recipe_modification.impl;
+
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Implemented by all vanilla recipe classes, to store their {@link ResultPipeline} on the recipe itself.
+ */
+@ApiStatus.Internal
+public interface RecipeResultAccessor {
+
+    default @Nullable ResultPipeline recipeModification$getResultPipeline() {
+        throw new RuntimeException();
+    }
+
+    default void recipeModification$setResultPipeline(@Nullable ResultPipeline pipeline) {
+        throw new RuntimeException();
+    }
+}
@@ -0,0 +1,181 @@
+package net.player005.recipe_modification.impl;
+
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.crafting.Recipe;
+import net.minecraft.world.item.crafting.RecipeInput;
+import net.minecraft.world.item.crafting.RecipeType;
+import net.player005.recipe_modification.api.RecipeModification;
+import net.player005.recipe_modification.api.ResultStatistics;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts how often the result of each recipe class is computed, and how long the {@link ResultPipeline}s take,
+ * by recipe class and by the modifier that added each result item modifier.
+ * <p>
+ * Nothing is recorded unless enabled, so the result hot paths only read a single field. Counters are never
+ * removed, only reset, so they can be resolved once and kept by the pipelines.
+ */
+@ApiStatus.Internal
+public final class ResultCounters {
+
+    /**
+     * Buckets of the latency histograms, bucket {@code i} counts calls that took at least {@code 2^(i-1)}
+     * and less than {@code 2^i} nanoseconds.
+     */
+    public static final int HISTOGRAM_BUCKETS = 40;
+
+    private static volatile boolean enabled = Boolean.getBoolean(RecipeModification.modID + ".result_stats");
+    private static volatile boolean histograms =
+        Boolean.getBoolean(RecipeModification.modID + ".result_stats.histogram");
+
+    private static final List<Counter> allRecipeCounters = new CopyOnWriteArrayList<>();
+    private static final ClassValue<Counter> recipeCounters = new ClassValue<>() {
+        @Override
+        protected Counter computeValue(Class<?> type) {
+            var counter = new Counter(type.getName());
+            allRecipeCounters.add(counter);
+            return counter;
+        }
+    };
+    private static final Map<String, Counter> modifierCounters = new ConcurrentHashMap<>();
+
+    private ResultCounters() {
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean enabled) {
+        ResultCounters.enabled = enabled;
+    }
+
+    public static boolean isRecordingHistograms() {
+        return histograms;
+    }
+
+    public static void setRecordingHistograms(boolean histograms) {
+        ResultCounters.histograms = histograms;
+    }
+
+    /**
+     * Returns the counter of the result item modifiers added by the given source, usually a modifier id.
+     */
+    public static Counter forModifier(String source) {
+        return modifierCounters.computeIfAbsent(source, Counter::new);
+    }
+
+    /**
+     * Computes the result of the given recipe like {@link ResultPipeline#apply}, while counting the call.
+     *
+     * @param pipeline the pipeline of the recipe, or null if its result isn't modified
+     */
+    public static ItemStack apply(Recipe<?> recipe, @Nullable ResultPipeline pipeline, ItemStack result,
+                                  @Nullable RecipeInput recipeInput) {
+        var counter = recipeCounters.get(recipe.getClass());
+        if (counter.recipeType == null) counter.recipeType = recipe.getType();
+        if (pipeline == null) {
+            counter.count(recipeInput);
+            return result;
+        }
+
+        var start = System.nanoTime();
+        // cached results usually don't run any modifiers, so only count them for the recipe
+        result = pipeline.isCached(recipeInput) ? pipeline.apply(recipe, result, recipeInput)
+            : pipeline.applyCounted(recipe, result, recipeInput);
+        counter.record(recipeInput, System.nanoTime() - start);
+        return result;
+    }
+
+    public static void reset() {
+        allRecipeCounters.forEach(Counter::reset);
+        modifierCounters.values().forEach(Counter::reset);
+    }
+
+    public static ResultStatistics snapshot() {
+        var byClass = new ArrayList<ResultStatistics.Counter>();
+        var recipeTypes = new ArrayList<String>();
+        for (var counter : allRecipeCounters) {
+            var snapshot = counter.snapshot();
+            if (snapshot.calls() == 0) continue;
+            byClass.add(snapshot);
+            var type = counter.recipeType;
+            recipeTypes.add(type == null ? "unknown"
+                : Objects.toString(BuiltInRegistries.RECIPE_TYPE.getKey(type), type.toString()));
+        }
+        var byModifier = new ArrayList<ResultStatistics.Counter>();
+        for (var counter : modifierCounters.values()) {
+            var snapshot = counter.snapshot();
+            if (snapshot.calls() > 0) byModifier.add(snapshot);
+        }
+        return new ResultStatistics(byClass, recipeTypes, byModifier);
+    }
+
+    /**
+     * Previews (without a recipe input) and assembles of something, and the time they took.
+     */
+    public static final class Counter {
+
+        private final String name;
+        private volatile @Nullable RecipeType<?> recipeType;
+        private final LongAdder previews = new LongAdder();
+        private final LongAdder assembles = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+        private volatile LongAdder @Nullable [] histogram;
+
+        private Counter(String name) {
+            this.name = name;
+        }
+
+        private void count(@Nullable RecipeInput recipeInput) {
+            (recipeInput == null ? previews : assembles).increment();
+        }
+
+        public void record(@Nullable RecipeInput recipeInput, long nanos) {
+            count(recipeInput);
+            this.nanos.add(nanos);
+            if (!histograms) return;
+            var histogram = histogram();
+            histogram[Math.min(HISTOGRAM_BUCKETS - 1, 64 - Long.numberOfLeadingZeros(nanos))].increment();
+        }
+
+        private LongAdder[] histogram() {
+            var histogram = this.histogram;
+            if (histogram != null) return histogram;
+            synchronized (this) {
+                if (this.histogram == null) {
+                    var buckets = new LongAdder[HISTOGRAM_BUCKETS];
+                    for (int i = 0; i < buckets.length; i++) buckets[i] = new LongAdder();
+                    this.histogram = buckets;
+                }
+                return Objects.requireNonNull(this.histogram);
+            }
+        }
+
+        private void reset() {
+            previews.reset();
+            assembles.reset();
+            nanos.reset();
+            var histogram = this.histogram;
+            if (histogram != null) for (var bucket : histogram) bucket.reset();
+        }
+
+        private ResultStatistics.Counter snapshot() {
+            var histogram = this.histogram;
+            var buckets = histogram == null ? new long[0]
+                : Arrays.stream(histogram).mapToLong(LongAdder::sum).toArray();
+            return new ResultStatistics.Counter(name, previews.sum(), assembles.sum(), nanos.sum(), buckets);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package net.player005.recipe_modification.impl;
+
+import com.google.common.collect.ImmutableList;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.crafting.Recipe;
+import net.minecraft.world.item.crafting.RecipeInput;
+import net.player005.recipe_modification.api.ResultItemModifier;
+import net.player005.recipe_modification.impl.jfr.ResultModificationEvent;
+import org.apache.commons.lang3.ArrayUtils;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+/**
+ * The result item override and {@link ResultItemModifier}s of a single recipe.
+ * <p>
+ * Pipelines are immutable, adding a modification creates a new pipeline. This way, they can be read
+ * from any thread without locking, and recipe copies can share them.
+ * <p>
+ * The preview result (without a recipe input) is computed once and cached, as recipe books and recipe viewers
+ * ask for it very often. Since pipelines are rebuilt on every reload, so is the cache. Pipelines with an
+ * {@linkplain ResultItemModifier#isInputDependent() input dependent} modifier never cache their preview.
+ * Pipelines of only {@linkplain ResultItemModifier#isPure() pure} modifiers also cache their last results for
+ * recipe inputs, see {@link AssembleCache}.
+ */
+@ApiStatus.Internal
+public final class ResultPipeline {
+
+    public static final ResultPipeline EMPTY =
+        new ResultPipeline(null, List.of(), new ResultItemModifier[0], new ResultCounters.Counter[0]);
+
+    private final @Nullable ItemStack override;
+    /**
+     * Functions that were already applied to the override, see {@link #withFolded}.
+     */
+    private final List<UnaryOperator<ItemStack>> folded;
+    private final ResultItemModifier[] modifiers;
+    private final ResultCounters.Counter[] counters;
+    private final boolean cachesPreview;
+    private volatile @Nullable Preview preview;
+    private final @Nullable AssembleCache assembleCache;
+
+    private ResultPipeline(@Nullable ItemStack override, List<UnaryOperator<ItemStack>> folded,
+                           ResultItemModifier[] modifiers, ResultCounters.Counter[] counters) {
+        this.override = override;
+        this.folded = folded;
+        this.modifiers = modifiers;
+        this.counters = counters;
+        var cachesPreview = true;
+        var pure = modifiers.length > 0;
+        for (var modifier : modifiers) {
+            if (modifier.isInputDependent()) cachesPreview = false;
+            if (!modifier.isPure()) pure = false;
+        }
+        this.cachesPreview = cachesPreview;
+        this.assembleCache = pure ? new AssembleCache() : null;
+    }
+
+    /**
+     * The cached preview of a recipe, only valid for the recipe and result it was computed from.
+     */
+    private record Preview(Recipe<?> recipe, ItemStack original, ItemStack result) {
+    }
+
+    /**
+     * Replaces the override, applying all {@linkplain #withFolded folded} functions to the new one, as they
+     * would have been applied to it if they weren't folded.
+     */
+    public ResultPipeline withOverride(ItemStack override) {
+        for (var function : folded) override = function.apply(override.copy());
+        return new ResultPipeline(override, folded, modifiers, counters);
+    }
+
+    /**
+     * Applies the given function to the result once, and stores its output as the override. The function must
+     * only depend on the stack it is given, and the result must not depend on the recipe input.
+     * Later modifiers still run on every call.
+     *
+     * @param result the result returned by the recipe itself, used if there is no override yet
+     * @throws IllegalStateException if the pipeline has modifiers, which the function would have to run after
+     */
+    public ResultPipeline withFolded(UnaryOperator<ItemStack> function, ItemStack result) {
+        if (modifiers.length > 0) throw new IllegalStateException("Can't fold a function after modifiers");
+        var folded = ImmutableList.<UnaryOperator<ItemStack>>builder().addAll(this.folded).add(function).build();
+        return new ResultPipeline(function.apply((override == null ? result : override).copy()), folded,
+            modifiers, counters);
+    }
+
+    /**
+     * @param source what added the modifier, usually the id of a recipe modifier, used for {@link ResultCounters}
+     */
+    public ResultPipeline withModifier(ResultItemModifier modifier, String source) {
+        return new ResultPipeline(override, folded, ArrayUtils.add(modifiers, modifier),
+            ArrayUtils.add(counters, ResultCounters.forModifier(source)));
+    }
+
+    public @Nullable ItemStack getOverride() {
+        return override;
+    }
+
+    public List<ResultItemModifier> getModifiers() {
+        return List.of(modifiers);
+    }
+
+    /**
+     * Returns the modified result of the given recipe.
+     *
+     * @param result the result returned by the recipe itself, which is never modified
+     */
+    public ItemStack apply(Recipe<?> recipe, ItemStack result, @Nullable RecipeInput recipeInput) {
+        if (recipeInput == null) {
+            if (cachesPreview) return preview(recipe, result).copy();
+        } else if (assembleCache != null) {
+            var fingerprint = AssembleCache.fingerprint(recipeInput);
+            var cached = assembleCache.get(recipe, result, recipeInput, fingerprint);
+            if (cached != null) return cached.copy();
+            var computed = compute(recipe, result, recipeInput);
+            assembleCache.put(recipe, result, recipeInput, fingerprint, computed.copy());
+            return computed;
+        }
+        return compute(recipe, result, recipeInput);
+    }
+
+    /**
+     * Returns whether the result for the given input is cached (or would be after the first call), so that
+     * {@link #apply} usually doesn't run any modifiers.
+     */
+    public boolean isCached(@Nullable RecipeInput recipeInput) {
+        return recipeInput == null ? cachesPreview : assembleCache != null;
+    }
+
+    /**
+     * Returns the modified result of the given recipe without a recipe input, computed only once unless the
+     * preview isn't cached. The returned stack is shared and must not be modified.
+     *
+     * @param result the result returned by the recipe itself, which is never modified
+     */
+    public ItemStack preview(Recipe<?> recipe, ItemStack result) {
+        if (!cachesPreview) return compute(recipe, result, null);
+        var preview = this.preview;
+        // recipe copies share pipelines, and some recipes return a new result every time
+        if (preview != null && preview.recipe == recipe
+            && (preview.original == result || ItemStack.matches(preview.original, result)))
+            return preview.result;
+        var computed = compute(recipe, result, null);
+        this.preview = new Preview(recipe, result, computed);
+        return computed;
+    }
+
+    private ItemStack compute(Recipe<?> recipe, ItemStack result, @Nullable RecipeInput recipeInput) {
+        var event = ResultModificationEvent.start();
+        result = (override == null ? result : override).copy();
+        for (var modifier : modifiers) {
+            result = modifier.getResultItem(recipe, result, recipeInput);
+        }
+        event.finish(recipe, modifiers.length);
+        return result;
+    }
+
+    /**
+     * Like {@link #apply}, but also records the time each modifier takes, see {@link ResultCounters}.
+     */
+    ItemStack applyCounted(Recipe<?> recipe, ItemStack result, @Nullable RecipeInput recipeInput) {
+        var event = ResultModificationEvent.start();
+        result = (override == null ? result : override).copy();
+        for (int i = 0; i < modifiers.length; i++) {
+            var start = System.nanoTime();
+            result = modifiers[i].getResultItem(recipe, result, recipeInput);
+            counters[i].record(recipeInput, System.nanoTime() - start);
+        }
+        event.finish(recipe, modifiers.length);
+        return result;
+    }
+}
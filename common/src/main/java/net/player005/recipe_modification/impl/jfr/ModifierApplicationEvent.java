@@ -0,0 +1,47 @@
+package net.player005.recipe_modification.impl.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import net.minecraft.resources.ResourceLocation;
+import org.jetbrains.annotations.ApiStatus;
+
+/**
+ * A single modifier applied to a single recipe. The ids are only converted to strings if the event is recorded.
+ */
+@ApiStatus.Internal
+@Name("recipe_modification.ModifierApplication")
+@Label("Modifier Application")
+@Category("Recipe Modification")
+@Description("A recipe modifier applied to a recipe")
+@StackTrace(false)
+public final class ModifierApplicationEvent extends Event {
+
+    @Label("Modifier")
+    private String modifier = "";
+
+    @Label("Recipe")
+    private String recipe = "";
+
+    @Label("Failed")
+    @Description("Whether applying the modifier threw an exception")
+    private boolean failed;
+
+    public static ModifierApplicationEvent start() {
+        var event = new ModifierApplicationEvent();
+        event.begin();
+        return event;
+    }
+
+    public void finish(ResourceLocation modifier, ResourceLocation recipe, boolean failed) {
+        end();
+        if (!shouldCommit()) return;
+        this.modifier = modifier.toString();
+        this.recipe = recipe.toString();
+        this.failed = failed;
+        commit();
+    }
+}
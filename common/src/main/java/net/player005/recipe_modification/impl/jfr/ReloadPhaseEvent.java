@@ -0,0 +1,38 @@
+package net.player005.recipe_modification.impl.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import org.jetbrains.annotations.ApiStatus;
+
+/**
+ * A single phase of applying modifications after a datapack reload, with the same names as in
+ * {@link net.player005.recipe_modification.api.ModificationProfile}.
+ */
+@ApiStatus.Internal
+@Name("recipe_modification.ReloadPhase")
+@Label("Reload Phase")
+@Category("Recipe Modification")
+@Description("A phase of applying recipe modifications after a datapack reload")
+@StackTrace(false)
+public final class ReloadPhaseEvent extends Event {
+
+    @Label("Phase")
+    private String phase;
+
+    private ReloadPhaseEvent(String phase) {
+        this.phase = phase;
+    }
+
+    /**
+     * Starts timing the given phase, which ends when the event is committed.
+     */
+    public static ReloadPhaseEvent start(String phase) {
+        var event = new ReloadPhaseEvent(phase);
+        event.begin();
+        return event;
+    }
+}
@@ -0,0 +1,45 @@
+package net.player005.recipe_modification.impl.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import net.minecraft.world.item.crafting.Recipe;
+import org.jetbrains.annotations.ApiStatus;
+
+/**
+ * Computing the modified result of a recipe. As this happens every time a crafting result is shown, the event is
+ * only recorded if it takes longer than its threshold, which can be lowered in the recording settings.
+ */
+@ApiStatus.Internal
+@Name("recipe_modification.ResultModification")
+@Label("Result Modification")
+@Category("Recipe Modification")
+@Description("Computing the modified result item of a recipe")
+@Threshold("100 us")
+public final class ResultModificationEvent extends Event {
+
+    @Label("Recipe Class")
+    private Class<?> recipeClass = Recipe.class;
+
+    @Label("Result Modifiers")
+    @Description("The number of result item modifiers that were applied")
+    private int modifiers;
+
+    public static ResultModificationEvent start() {
+        var event = new ResultModificationEvent();
+        event.begin();
+        return event;
+    }
+
+    public void finish(Recipe<?> recipe, int modifiers) {
+        end();
+        if (!shouldCommit()) return;
+        this.recipeClass = recipe.getClass();
+        this.modifiers = modifiers;
+        commit();
+    }
+}
@@ -0,0 +1,4 @@
+@NotNullByDefault
+package net.player005.recipe_modification.impl.jfr;
+
+import org.jetbrains.annotations.NotNullByDefault;
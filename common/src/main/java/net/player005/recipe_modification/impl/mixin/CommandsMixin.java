@@ -0,0 +1,26 @@
+package net.player005.recipe_modification.impl.mixin;
+
+import com.mojang.brigadier.CommandDispatcher;
+import net.minecraft.commands.CommandBuildContext;
+import net.minecraft.commands.CommandSourceStack;
+import net.minecraft.commands.Commands;
+import net.player005.recipe_modification.impl.RecipeModificationCommand;
+import org.spongepowered.asm.mixin.Final;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+@Mixin(Commands.class)
+public class CommandsMixin {
+
+    @Shadow @Final
+    private CommandDispatcher<CommandSourceStack> dispatcher;
+
+    @Inject(method = "<init>", at = @At("RETURN"))
+    private void registerCommands(Commands.CommandSelection selection, CommandBuildContext context,
+                                  CallbackInfo ci) {
+        RecipeModificationCommand.register(dispatcher);
+    }
+}
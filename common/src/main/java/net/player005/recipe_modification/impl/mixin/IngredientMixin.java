@@ -8,7 +8,9 @@ import org.apache.commons.lang3.ArrayUtils;
 import org.jetbrains.annotations.Nullable;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.Unique;
 
+import java.util.BitSet;
 import java.util.function.Predicate;
 
 @SuppressWarnings("AddedMixinMembersNamePattern")
@@ -21,6 +23,9 @@ public abstract class IngredientMixin implements Predicate<ItemStack>, Ingredien
 
     @Shadow @Nullable private IntList stackingIds;
 
+    @Unique
+    private volatile @Nullable BitSet recipeModification$itemIds;
+
     @Override
     public void replaceValues(Ingredient.Value[] values) {
         this.values = values;
@@ -28,6 +33,17 @@ public abstract class IngredientMixin implements Predicate<ItemStack>, Ingredien
         //noinspection DataFlowIssue
         this.itemStacks = null;
         this.stackingIds = null;
+        this.recipeModification$itemIds = null;
+    }
+
+    @Override
+    public BitSet getItemIds() {
+        var itemIds = recipeModification$itemIds;
+        if (itemIds == null) {
+            itemIds = IngredientAccessor.computeItemIds((Ingredient) (Object) this, values);
+            recipeModification$itemIds = itemIds;
+        }
+        return itemIds;
     }
 
     @Override
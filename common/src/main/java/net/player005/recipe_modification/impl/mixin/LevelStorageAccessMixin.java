@@ -0,0 +1,33 @@
+package net.player005.recipe_modification.impl.mixin;
+
+import net.minecraft.world.level.storage.LevelResource;
+import net.minecraft.world.level.storage.LevelStorageSource;
+import net.player005.recipe_modification.api.RecipeModification;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+import java.nio.file.Path;
+
+/**
+ * Datapacks of a world are loaded before its server is created, so the world folder is taken from the
+ * storage access that is opened before.
+ */
+@Mixin(LevelStorageSource.LevelStorageAccess.class)
+public abstract class LevelStorageAccessMixin {
+
+    @Shadow
+    public abstract Path getLevelPath(LevelResource resource);
+
+    @Inject(method = "<init>", at = @At("RETURN"))
+    private void rememberWorldDirectory(CallbackInfo ci) {
+        RecipeModification.onWorldOpened(getLevelPath(LevelResource.ROOT));
+    }
+
+    @Inject(method = "close", at = @At("HEAD"))
+    private void forgetWorldDirectory(CallbackInfo ci) {
+        RecipeModification.onWorldClosed(getLevelPath(LevelResource.ROOT));
+    }
+}
@@ -17,4 +17,7 @@ public interface RecipeManagerAccessor {
 
     @Accessor
     HolderLookup.Provider getRegistries();
+
+    @Accessor("hasErrors")
+    void setHasErrors(boolean hasErrors);
 }
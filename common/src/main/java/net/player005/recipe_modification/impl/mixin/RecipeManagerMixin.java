@@ -1,32 +1,27 @@
 package net.player005.recipe_modification.impl.mixin;
 
-import com.google.common.collect.Multimap;
-import com.google.common.collect.MultimapBuilder;
+import com.google.gson.JsonElement;
 import net.minecraft.resources.ResourceLocation;
-import net.minecraft.world.item.crafting.RecipeHolder;
+import net.minecraft.server.packs.resources.ResourceManager;
+import net.minecraft.util.profiling.ProfilerFiller;
 import net.minecraft.world.item.crafting.RecipeManager;
-import net.minecraft.world.item.crafting.RecipeType;
-import net.player005.recipe_modification.impl.RecipeManagerAccessorTwo;
+import net.player005.recipe_modification.api.RecipeModification;
+import net.player005.recipe_modification.impl.JsonFingerprint;
 import org.spongepowered.asm.mixin.Mixin;
-import org.spongepowered.asm.mixin.Shadow;
-import org.spongepowered.asm.mixin.Unique;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 
-import java.util.HashMap;
 import java.util.Map;
 
-@Mixin(value = RecipeManager.class, priority = 900)
-public abstract class RecipeManagerMixin implements RecipeManagerAccessorTwo {
+@Mixin(RecipeManager.class)
+public class RecipeManagerMixin {
 
-    @Shadow
-    private Multimap<RecipeType<?>, RecipeHolder<?>> byType;
-
-    @Shadow
-    private Map<ResourceLocation, RecipeHolder<?>> byName;
-
-    @Unique
-    @Override
-    public void recipeModification$makeMutable() {
-        byType = MultimapBuilder.hashKeys().arrayListValues().build(byType);
-        byName = new HashMap<>(byName);
+    @Inject(method = "apply(Ljava/util/Map;Lnet/minecraft/server/packs/resources/ResourceManager;" +
+        "Lnet/minecraft/util/profiling/ProfilerFiller;)V", at = @At("HEAD"))
+    private void fingerprintRecipes(Map<ResourceLocation, JsonElement> object, ResourceManager resourceManager,
+                                    ProfilerFiller profiler, CallbackInfo ci) {
+        if (RecipeModification.isIncrementalReload())
+            RecipeModification.updateRecipeFingerprints(JsonFingerprint.ofAll(object));
     }
 }
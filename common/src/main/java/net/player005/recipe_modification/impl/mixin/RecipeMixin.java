@@ -1,13 +1,12 @@
 package net.player005.recipe_modification.impl.mixin;
 
-import net.minecraft.core.HolderLookup;
+import com.llamalad7.mixinextras.injector.ModifyReturnValue;
 import net.minecraft.world.item.ItemStack;
 import net.minecraft.world.item.crafting.*;
-import net.player005.recipe_modification.api.RecipeModification;
+import net.player005.recipe_modification.impl.RecipeResultAccessor;
+import net.player005.recipe_modification.impl.ResultCounters;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.injection.At;
-import org.spongepowered.asm.mixin.injection.Inject;
-import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
 
 @Mixin(value = {
         AbstractCookingRecipe.class, CustomRecipe.class,
@@ -18,9 +17,13 @@ import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
 }, priority = 900)
 public abstract class RecipeMixin {
 
-    @Inject(method = "getResultItem", at = @At("RETURN"), cancellable = true)
-    public void getResultItem(HolderLookup.Provider registries, CallbackInfoReturnable<ItemStack> cir) {
-        cir.setReturnValue(RecipeModification.getRecipeResult((Recipe<?>) this, cir.getReturnValue(), null));
+    @ModifyReturnValue(method = "getResultItem", at = @At("RETURN"))
+    public ItemStack getResultItem(ItemStack original) {
+        var pipeline = ((RecipeResultAccessor) this).recipeModification$getResultPipeline();
+        if (ResultCounters.isEnabled()) return ResultCounters.apply((Recipe<?>) this, pipeline, original, null);
+        // most recipes aren't modified, return the vanilla result without any additional work
+        if (pipeline == null) return original;
+        return pipeline.apply((Recipe<?>) this, original, null);
     }
 
 }
@@ -1,14 +1,14 @@
 package net.player005.recipe_modification.impl.mixin;
 
+import com.llamalad7.mixinextras.injector.ModifyReturnValue;
 import com.llamalad7.mixinextras.sugar.Local;
 import net.minecraft.world.item.ItemStack;
 import net.minecraft.world.item.crafting.*;
-import net.player005.recipe_modification.api.RecipeModification;
+import net.player005.recipe_modification.impl.RecipeResultAccessor;
+import net.player005.recipe_modification.impl.ResultCounters;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Desc;
-import org.spongepowered.asm.mixin.injection.Inject;
-import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
 
 /**
  * This modifies the return value of {@link Recipe#assemble(RecipeInput, net.minecraft.core.HolderLookup.Provider)} in order for
@@ -27,9 +27,13 @@ import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
 public class RecipeMixin2 {
 
     @SuppressWarnings("MixinAnnotationTarget")
-    @Inject(at = @At("RETURN"), cancellable = true, target = @Desc(value = "assemble", args =
+    @ModifyReturnValue(at = @At("RETURN"), target = @Desc(value = "assemble", args =
             {RecipeInput.class, net.minecraft.core.HolderLookup.Provider.class}, ret = ItemStack.class), require = 0)
-    public void modifyAssemble(CallbackInfoReturnable<ItemStack> cir, @Local(argsOnly = true) RecipeInput recipeInput) {
-        cir.setReturnValue(RecipeModification.getRecipeResult((Recipe<?>) this, cir.getReturnValue(), recipeInput));
+    public ItemStack modifyAssemble(ItemStack original, @Local(argsOnly = true) RecipeInput recipeInput) {
+        var pipeline = ((RecipeResultAccessor) this).recipeModification$getResultPipeline();
+        if (ResultCounters.isEnabled())
+            return ResultCounters.apply((Recipe<?>) this, pipeline, original, recipeInput);
+        if (pipeline == null) return original;
+        return pipeline.apply((Recipe<?>) this, original, recipeInput);
     }
 }
@@ -0,0 +1,34 @@
+package net.player005.recipe_modification.impl.mixin;
+
+import net.minecraft.world.item.crafting.*;
+import net.player005.recipe_modification.impl.RecipeResultAccessor;
+import net.player005.recipe_modification.impl.ResultPipeline;
+import org.jetbrains.annotations.Nullable;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Unique;
+
+/**
+ * Adds a field for the {@link ResultPipeline} to the base classes of all recipes targeted
+ * by {@link RecipeMixin} and {@link RecipeMixin2}.
+ */
+@Mixin(value = {
+        AbstractCookingRecipe.class, CustomRecipe.class,
+        ShapedRecipe.class, ShapelessRecipe.class,
+        SingleItemRecipe.class,
+        SmithingTransformRecipe.class, SmithingTrimRecipe.class,
+})
+public abstract class RecipeResultMixin implements RecipeResultAccessor {
+
+    @Unique
+    private @Nullable ResultPipeline recipeModification$resultPipeline;
+
+    @Override
+    public @Nullable ResultPipeline recipeModification$getResultPipeline() {
+        return recipeModification$resultPipeline;
+    }
+
+    @Override
+    public void recipeModification$setResultPipeline(@Nullable ResultPipeline pipeline) {
+        recipeModification$resultPipeline = pipeline;
+    }
+}
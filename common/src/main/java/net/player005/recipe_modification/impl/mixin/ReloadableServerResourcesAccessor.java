@@ -0,0 +1,13 @@
+package net.player005.recipe_modification.impl.mixin;
+
+import net.minecraft.server.ReloadableServerResources;
+import net.minecraft.tags.TagManager;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.gen.Accessor;
+
+@Mixin(ReloadableServerResources.class)
+public interface ReloadableServerResourcesAccessor {
+
+    @Accessor
+    TagManager getTagManager();
+}
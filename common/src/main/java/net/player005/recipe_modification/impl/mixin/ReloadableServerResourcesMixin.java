@@ -1,10 +1,12 @@
 package net.player005.recipe_modification.impl.mixin;
 
 import com.llamalad7.mixinextras.injector.ModifyReturnValue;
+import com.llamalad7.mixinextras.sugar.Local;
 import net.minecraft.server.ReloadableServerResources;
 import net.minecraft.server.packs.resources.PreparableReloadListener;
 import net.minecraft.world.item.crafting.RecipeManager;
 import net.player005.recipe_modification.api.RecipeModification;
+import net.player005.recipe_modification.impl.PendingTags;
 import net.player005.recipe_modification.serialization.RecipeModifierManager;
 import org.apache.commons.lang3.ArrayUtils;
 import org.spongepowered.asm.mixin.Mixin;
@@ -14,6 +16,8 @@ import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 @Mixin(ReloadableServerResources.class)
 public abstract class ReloadableServerResourcesMixin {
@@ -28,6 +32,24 @@ public abstract class ReloadableServerResourcesMixin {
         return List.of(newArray);
     }
 
+    /**
+     * Plans which modifiers match which recipes on the background executor, before the server thread
+     * binds the tags and puts the new recipes into use, see {@link RecipeModification#setAsyncPlanning}.
+     */
+    @ModifyReturnValue(method = "loadResources", at = @At("RETURN"))
+    private static CompletableFuture<ReloadableServerResources> planRecipeModification(
+        CompletableFuture<ReloadableServerResources> original,
+        @Local(argsOnly = true, ordinal = 0) Executor backgroundExecutor) {
+        if (!RecipeModification.isAsyncPlanning()) return original;
+        // other mods may still register modifiers on this thread while planning
+        var registeredModifiers = RecipeModification.snapshotRegisteredModifiers();
+        return original.thenCompose(resources -> CompletableFuture.supplyAsync(() -> PendingTags.areItemTagsBound(
+                ((ReloadableServerResourcesAccessor) resources).getTagManager().getResult()), backgroundExecutor)
+            .thenCompose(itemTagsUnchanged -> RecipeModification.planModifications(resources.getRecipeManager(),
+                registeredModifiers, itemTagsUnchanged, backgroundExecutor))
+            .thenApply(unused -> resources));
+    }
+
     @Inject(method = "updateRegistryTags()V", at = @At("RETURN"))
     public void initialiseRecipeModification(CallbackInfo ci) {
         RecipeModification.onRecipeManagerLoad(getRecipeManager());
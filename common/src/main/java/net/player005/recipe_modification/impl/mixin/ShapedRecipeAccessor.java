@@ -0,0 +1,13 @@
+package net.player005.recipe_modification.impl.mixin;
+
+import net.minecraft.world.item.crafting.ShapedRecipe;
+import net.minecraft.world.item.crafting.ShapedRecipePattern;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.gen.Accessor;
+
+@Mixin(ShapedRecipe.class)
+public interface ShapedRecipeAccessor {
+
+    @Accessor
+    ShapedRecipePattern getPattern();
+}
@@ -0,0 +1,19 @@
+package net.player005.recipe_modification.impl.mixin;
+
+import net.minecraft.world.item.crafting.ShapedRecipePattern;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Mutable;
+import org.spongepowered.asm.mixin.gen.Accessor;
+
+import java.util.Optional;
+
+@Mixin(ShapedRecipePattern.class)
+public interface ShapedRecipePatternAccessor {
+
+    @Accessor
+    Optional<ShapedRecipePattern.Data> getData();
+
+    @Mutable
+    @Accessor
+    void setData(Optional<ShapedRecipePattern.Data> data);
+}
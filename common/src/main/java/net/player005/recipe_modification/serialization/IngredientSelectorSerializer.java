@@ -12,13 +12,15 @@ import net.minecraft.world.item.Items;
 import net.player005.recipe_modification.api.IngredientSelector;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 
 public abstract class IngredientSelectorSerializer {
 
-    private static final Map<String, Function<JsonObject, IngredientSelector>> deserializers = new HashMap<>();
+    // modifier files are parsed on multiple threads
+    private static final Map<String, Function<JsonObject, IngredientSelector>> deserializers =
+        new ConcurrentHashMap<>();
 
     public static IngredientSelector fromJson(JsonElement json) {
         if (json instanceof JsonPrimitive primitive) {
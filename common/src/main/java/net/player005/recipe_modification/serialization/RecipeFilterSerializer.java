@@ -12,19 +12,21 @@ import net.minecraft.resources.ResourceLocation;
 import net.minecraft.tags.TagKey;
 import net.minecraft.world.item.Item;
 import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.crafting.RecipeType;
 import net.minecraft.world.item.crafting.ShapedRecipe;
 import net.minecraft.world.item.crafting.ShapelessRecipe;
 import net.player005.recipe_modification.api.RecipeFilter;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 
 @SuppressWarnings("SuspiciousToArrayCall")
 public abstract class RecipeFilterSerializer {
 
-    private static final Map<String, Function<JsonObject, RecipeFilter>> deserializers = new HashMap<>();
+    // modifier files are parsed on multiple threads
+    private static final Map<String, Function<JsonObject, RecipeFilter>> deserializers = new ConcurrentHashMap<>();
 
     private static final ResourceLocation CRAFTING_SHAPED = ResourceLocation.parse("crafting_shaped");
     private static final ResourceLocation CRAFTING_SHAPELESS = ResourceLocation.parse("crafting_shapeless");
@@ -74,13 +76,16 @@ public abstract class RecipeFilterSerializer {
         });
         registerSerializer("result_item_predicate", (json) -> {
             RecipeFilter itemFilter = null;
-            json = json.get("predicate").getAsJsonObject();
+            var predicateJson = json.get("predicate").getAsJsonObject();
 
-            if (json.has("items")) {
-                itemFilter = createFilterByResultItem(json.remove("items"));
+            if (predicateJson.has("items")) {
+                itemFilter = createFilterByResultItem(predicateJson.get("items"));
+                // the items are matched by the item filter, the file itself must stay unchanged
+                predicateJson = predicateJson.deepCopy();
+                predicateJson.remove("items");
             }
 
-            var predicate = ItemPredicate.CODEC.parse(JsonOps.INSTANCE, json).getOrThrow();
+            var predicate = ItemPredicate.CODEC.parse(JsonOps.INSTANCE, predicateJson).getOrThrow();
             return itemFilter == null ?
                 RecipeFilter.resultItemMatches(predicate) :
                 RecipeFilter.and(itemFilter, RecipeFilter.resultItemMatches(predicate));
@@ -114,8 +119,8 @@ public abstract class RecipeFilterSerializer {
         registerSerializer("is_recipe_type", (json) -> {
             var rl = ResourceLocation.parse(json.get("recipe_type").getAsString());
 
-            if (rl.equals(CRAFTING_SHAPED)) return (recipe, registries) -> recipe.value() instanceof ShapedRecipe;
-            if (rl.equals(CRAFTING_SHAPELESS)) return (recipe, registries) -> recipe.value() instanceof ShapelessRecipe;
+            if (rl.equals(CRAFTING_SHAPED)) return RecipeFilter.isType(RecipeType.CRAFTING, ShapedRecipe.class);
+            if (rl.equals(CRAFTING_SHAPELESS)) return RecipeFilter.isType(RecipeType.CRAFTING, ShapelessRecipe.class);
 
             var type = BuiltInRegistries.RECIPE_TYPE.get(rl);
             if (type == null)
@@ -7,45 +7,107 @@ import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.mojang.logging.LogUtils;
 import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.packs.resources.PreparableReloadListener;
 import net.minecraft.server.packs.resources.ResourceManager;
 import net.minecraft.server.packs.resources.SimpleJsonResourceReloadListener;
 import net.minecraft.util.profiling.ProfilerFiller;
+import net.player005.recipe_modification.api.RecipeFilter;
 import net.player005.recipe_modification.api.RecipeModification;
 import net.player005.recipe_modification.api.RecipeModifierHolder;
+import net.player005.recipe_modification.impl.JsonFingerprint;
+import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
-public class RecipeModifierManager extends SimpleJsonResourceReloadListener {
+/**
+ * Loads all {@code recipe_modifier} files from datapacks. Files are parsed in parallel on the background executor
+ * of the reload, and the parsed modifiers are handed to {@link RecipeModification} on the game thread, ordered by
+ * their id.
+ */
+public class RecipeModifierManager implements PreparableReloadListener {
 
     private static final Gson GSON = new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create();
     private static final Logger LOGGER = LogUtils.getLogger();
+    private static final String DIRECTORY = "recipe_modifier";
 
-    public RecipeModifierManager() {
-        super(GSON, "recipe_modifier");
+    @Override
+    public CompletableFuture<Void> reload(PreparationBarrier preparationBarrier, ResourceManager resourceManager,
+                                          ProfilerFiller preparationsProfiler, ProfilerFiller reloadProfiler,
+                                          Executor backgroundExecutor, Executor gameExecutor) {
+        return CompletableFuture.supplyAsync(() -> {
+                var jsons = new HashMap<ResourceLocation, JsonElement>();
+                SimpleJsonResourceReloadListener.scanDirectory(resourceManager, DIRECTORY, GSON, jsons);
+                return jsons;
+            }, backgroundExecutor)
+            .thenCompose(jsons -> parse(jsons, backgroundExecutor))
+            .thenCompose(preparationBarrier::wait)
+            .thenAcceptAsync(this::apply, gameExecutor);
     }
 
-    @Override
-    protected void apply(Map<ResourceLocation, JsonElement> object, ResourceManager resourceManager, ProfilerFiller profiler) {
-        var builder = ImmutableList.<RecipeModifierHolder>builder();
-
-        for (Map.Entry<ResourceLocation, JsonElement> entry : object.entrySet()) {
-            var id = entry.getKey();
-
-            try {
-                JsonObject json = entry.getValue().getAsJsonObject();
-                builder.add(new RecipeModifierHolder(
-                        id,
-                        RecipeFilterSerializer.fromJson(json.get("target_recipes")),
-                        ModificationSetSerializer.fromJson(json.get("modifiers"))
-                ));
-            } catch (Exception exception) {
-                LOGGER.error("Error loading recipe modifier {}:", id, exception);
+    /**
+     * Parses the given modifier files, each as a separate task on the given executor.
+     */
+    protected CompletableFuture<ParsedModifiers> parse(Map<ResourceLocation, JsonElement> jsons, Executor executor) {
+        var ids = jsons.keySet().stream().sorted().toList();
+        var files = new ArrayList<CompletableFuture<ParsedFile>>(ids.size());
+        for (var id : ids) {
+            var json = jsons.get(id);
+            files.add(CompletableFuture.supplyAsync(() -> parseFile(id, json), executor));
+        }
+
+        return CompletableFuture.allOf(files.toArray(CompletableFuture[]::new)).thenApply(unused -> {
+            var modifiers = ImmutableList.<RecipeModifierHolder>builderWithExpectedSize(files.size());
+            var fingerprints = new IdentityHashMap<RecipeModifierHolder, JsonFingerprint>(files.size());
+            var errors = new LinkedHashMap<ResourceLocation, Exception>();
+            for (var future : files) {
+                var file = future.join();
+                if (file.holder() == null || file.fingerprint() == null) {
+                    errors.put(file.id(), Objects.requireNonNull(file.error()));
+                    continue;
+                }
+                modifiers.add(file.holder());
+                fingerprints.put(file.holder(), file.fingerprint());
             }
+            return new ParsedModifiers(modifiers.build(), fingerprints, errors);
+        });
+    }
+
+    private static ParsedFile parseFile(ResourceLocation id, JsonElement element) {
+        try {
+            JsonObject json = element.getAsJsonObject();
+            // taken from the file as it was loaded, before anything parses it
+            var fingerprint = JsonFingerprint.of(json.get("target_recipes"));
+            var holder = new RecipeModifierHolder(
+                    id,
+                    RecipeFilter.compile(RecipeFilterSerializer.fromJson(json.get("target_recipes"))),
+                    ModificationSetSerializer.fromJson(json.get("modifiers"))
+            );
+            return new ParsedFile(id, holder, fingerprint, null);
+        } catch (Exception exception) {
+            return new ParsedFile(id, null, null, exception);
         }
-        var list = builder.build();
+    }
+
+    protected void apply(ParsedModifiers parsed) {
+        parsed.errors().forEach((id, exception) ->
+            LOGGER.error("Error loading recipe modifier {}:", id, exception));
+
+        RecipeModification.updateJsonRecipeModifiers(parsed.modifiers(), parsed.fingerprints());
+        LOGGER.info("Loaded {} recipe modifiers", parsed.modifiers().size());
+    }
+
+    /**
+     * All modifiers parsed in a reload, in order of their ids, and the errors of files that couldn't be parsed.
+     */
+    protected record ParsedModifiers(ImmutableList<RecipeModifierHolder> modifiers,
+                                     Map<RecipeModifierHolder, JsonFingerprint> fingerprints,
+                                     Map<ResourceLocation, Exception> errors) {
+    }
 
-        RecipeModification.updateJsonRecipeModifiers(list);
-        LOGGER.info("Loaded {} recipe modifiers", list.size());
+    private record ParsedFile(ResourceLocation id, @Nullable RecipeModifierHolder holder,
+                              @Nullable JsonFingerprint fingerprint, @Nullable Exception error) {
     }
 }
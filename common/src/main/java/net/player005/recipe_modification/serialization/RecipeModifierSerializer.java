@@ -9,12 +9,13 @@ import net.minecraft.world.level.storage.loot.functions.LootItemFunctions;
 import net.player005.recipe_modification.api.RecipeModification;
 import net.player005.recipe_modification.api.RecipeModifier;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 
 public abstract class RecipeModifierSerializer {
-    private static final Map<String, Function<JsonObject, RecipeModifier>> deserializers = new HashMap<>();
+    // modifier files are parsed on multiple threads
+    private static final Map<String, Function<JsonObject, RecipeModifier>> deserializers = new ConcurrentHashMap<>();
 
     public static RecipeModifier fromJson(JsonElement json) {
         var object = json.getAsJsonObject();
@@ -57,7 +58,7 @@ public abstract class RecipeModifierSerializer {
 
         registerDeserializer("modify_result_item", object -> {
             var function = LootItemFunctions.CODEC.parse(JsonOps.INSTANCE, object).getOrThrow().value();
-            return RecipeModifier.modifyResultItem(itemStack -> function.apply(itemStack, null));
+            return RecipeModifier.modifyResultItem(function);
         });
 
         registerDeserializer("remove_recipe", object -> (recipe, helper) ->
@@ -0,0 +1,78 @@
+package net.player005.recipe_modification.impl.jfr;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import net.minecraft.resources.ResourceLocation;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JfrEventsTest {
+
+    @Test
+    void recordsReloadPhases() throws IOException {
+        var events = record(true, () -> {
+            var event = ReloadPhaseEvent.start("apply_modifiers");
+            event.commit();
+        });
+
+        var event = single(events, "recipe_modification.ReloadPhase");
+        assertEquals("apply_modifiers", event.getString("phase"));
+        assertFalse(event.getDuration().isNegative());
+    }
+
+    @Test
+    void recordsModifierApplications() throws IOException {
+        var events = record(true, () -> ModifierApplicationEvent.start().finish(
+            ResourceLocation.fromNamespaceAndPath("test", "modifier"),
+            ResourceLocation.withDefaultNamespace("stick"), true));
+
+        var event = single(events, "recipe_modification.ModifierApplication");
+        assertEquals("test:modifier", event.getString("modifier"));
+        assertEquals("minecraft:stick", event.getString("recipe"));
+        assertTrue(event.getBoolean("failed"));
+    }
+
+    @Test
+    void recordsNothingWhenDisabled() throws IOException {
+        var events = record(false, () -> {
+            ReloadPhaseEvent.start("total").commit();
+            ModifierApplicationEvent.start().finish(ResourceLocation.fromNamespaceAndPath("test", "modifier"),
+                ResourceLocation.withDefaultNamespace("stick"), false);
+        });
+
+        assertTrue(events.stream().noneMatch(event -> event.getEventType().getName()
+            .startsWith("recipe_modification.")));
+    }
+
+    private static List<RecordedEvent> record(boolean enabled, Runnable action) throws IOException {
+        try (var recording = new Recording()) {
+            if (enabled) {
+                recording.enable(ReloadPhaseEvent.class);
+                recording.enable(ModifierApplicationEvent.class);
+            }
+            recording.start();
+            action.run();
+            recording.stop();
+
+            var file = Files.createTempFile("recipe_modification", ".jfr");
+            try {
+                recording.dump(file);
+                return RecordingFile.readAllEvents(file);
+            } finally {
+                Files.delete(file);
+            }
+        }
+    }
+
+    private static RecordedEvent single(List<RecordedEvent> events, String name) {
+        var matching = events.stream().filter(event -> event.getEventType().getName().equals(name)).toList();
+        assertEquals(1, matching.size(), "events named " + name);
+        return matching.getFirst();
+    }
+}
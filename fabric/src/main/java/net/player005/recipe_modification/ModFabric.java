@@ -1,12 +1,15 @@
 package net.player005.recipe_modification;
 
 import net.fabricmc.api.ModInitializer;
+import net.fabricmc.loader.api.FabricLoader;
 import net.player005.recipe_modification.api.RecipeModification;
 import net.player005.recipe_modification.impl.Platform_1_21;
 
 public class ModFabric implements ModInitializer {
     @Override
     public void onInitialize() {
-        RecipeModification.initPlatform(new Platform_1_21());
+        var version = FabricLoader.getInstance().getModContainer(RecipeModification.modID).orElseThrow()
+            .getMetadata().getVersion().getFriendlyString();
+        RecipeModification.initPlatform(new Platform_1_21(version));
     }
 }
@@ -1,6 +1,7 @@
 package net.player005.recipe_modification;
 
 import net.neoforged.bus.api.IEventBus;
+import net.neoforged.fml.ModContainer;
 import net.neoforged.fml.common.Mod;
 import net.player005.recipe_modification.api.RecipeModification;
 import net.player005.recipe_modification.impl.Platform_1_21;
@@ -10,7 +11,7 @@ public class ModNeoforge {
 
     public static final String modID = "recipe_modification";
 
-    public ModNeoforge(@SuppressWarnings("unused") IEventBus modEventBus) {
-        RecipeModification.initPlatform(new Platform_1_21());
+    public ModNeoforge(@SuppressWarnings("unused") IEventBus modEventBus, ModContainer modContainer) {
+        RecipeModification.initPlatform(new Platform_1_21(modContainer.getModInfo().getVersion().toString()));
     }
 }
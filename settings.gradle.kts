@@ -12,4 +12,4 @@ plugins {
     id("org.gradle.toolchains.foojay-resolver-convention") version "1.0.0"
 }
 
-include("common", "fabric", "neoforge")
\ No newline at end of file
+include("common", "fabric", "neoforge", "benchmarks")
\ No newline at end of file